@@ -0,0 +1,64 @@
+package virtuoel.pehkui.gametest;
+
+import java.util.function.IntToDoubleFunction;
+
+import virtuoel.kanos_config.api.MutableConfigEntry;
+import virtuoel.pehkui.Pehkui;
+import virtuoel.pehkui.util.ConfigSyncUtils;
+
+public final class BenchmarkUtils
+{
+	/**
+	 * Runs the body once to warm up, then times the given number of iterations and logs the average time per iteration.
+	 * 
+	 * @return Sum of the values returned by the timed iterations, to be checked by the caller so the work is not optimized away
+	 */
+	public static double run(final String name, final int iterations, final IntToDoubleFunction body)
+	{
+		double result = 0.0D;
+		for (int i = 0; i < iterations; i++)
+		{
+			result += body.applyAsDouble(i);
+		}
+		
+		result = 0.0D;
+		final long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++)
+		{
+			result += body.applyAsDouble(i);
+		}
+		final long elapsed = System.nanoTime() - start;
+		
+		Pehkui.LOGGER.info("[Benchmark] {}: {} iterations, {} ms total, {} ns/iteration", name, iterations, elapsed / 1_000_000L, String.format("%.2f", (double) elapsed / iterations));
+		
+		return result;
+	}
+	
+	@SuppressWarnings("unchecked")
+	public static <T> MutableConfigEntry<T> getConfig(final String name)
+	{
+		return (MutableConfigEntry<T>) ConfigSyncUtils.CONFIGS.get(name);
+	}
+	
+	public static <T> void withConfig(final String name, final T value, final Runnable action)
+	{
+		final MutableConfigEntry<T> config = getConfig(name);
+		final T previous = config.get();
+		
+		config.setValue(value);
+		
+		try
+		{
+			action.run();
+		}
+		finally
+		{
+			config.setValue(previous);
+		}
+	}
+	
+	private BenchmarkUtils()
+	{
+		
+	}
+}
@@ -0,0 +1,87 @@
+package virtuoel.pehkui.gametest;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.fabricmc.fabric.api.gametest.v1.FabricGameTest;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityType;
+import net.minecraft.entity.passive.CowEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.test.GameTest;
+import net.minecraft.test.TestContext;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.util.math.random.Random;
+import virtuoel.pehkui.api.ScaleTypes;
+
+public class CollisionBenchmarks implements FabricGameTest
+{
+	private static final int ITERATIONS = 2_000;
+	private static final float SCALE = 30.0F;
+	private static final int RADIUS = 32;
+	private static final int DEPTH = 8;
+	
+	/**
+	 * Compares block collisions of a cow scaled to {@value #SCALE} walking over uneven stone terrain,
+	 * with coarse block collisions enabled and with vanilla block collisions.
+	 * Both paths must adjust the movement the same way.
+	 */
+	@GameTest(templateName = EMPTY_STRUCTURE, batchId = "pehkui_collisions")
+	public void giantOverTerrain(final TestContext context)
+	{
+		final ServerWorld world = context.getWorld();
+		final BlockPos origin = context.getAbsolutePos(new BlockPos(4, 0, 4));
+		final Random random = world.getRandom();
+		final Map<BlockPos, BlockState> previous = new HashMap<>();
+		
+		BlockPos pos;
+		for (int x = -RADIUS; x < RADIUS; x++)
+		{
+			for (int z = -RADIUS; z < RADIUS; z++)
+			{
+				final int height = random.nextInt(3);
+				
+				for (int y = -DEPTH; y < 4; y++)
+				{
+					pos = origin.add(x, y, z);
+					previous.put(pos, world.getBlockState(pos));
+					world.setBlockState(pos, y < height ? Blocks.STONE.getDefaultState() : Blocks.AIR.getDefaultState(), Block.NOTIFY_LISTENERS | Block.FORCE_STATE);
+				}
+			}
+		}
+		
+		final CowEntity cow = EntityType.COW.create(world);
+		
+		ScaleTypes.BASE.getScaleData(cow).setScale(SCALE);
+		cow.refreshPositionAndAngles(origin.getX() + 0.5D, origin.getY() + 3.0D, origin.getZ() + 0.5D, 0.0F, 0.0F);
+		
+		final Box box = cow.getBoundingBox();
+		final Vec3d movement = new Vec3d(0.3D, -0.5D, 0.2D);
+		
+		final Vec3d[] results = new Vec3d[2];
+		
+		BenchmarkUtils.withConfig("coarseBlockCollisionScaleThreshold", 8.0D, () ->
+		{
+			results[0] = Entity.adjustMovementForCollisions(cow, movement, box, world, Collections.emptyList());
+			BenchmarkUtils.run("Scale " + SCALE + " block collisions, coarse", ITERATIONS, i -> Entity.adjustMovementForCollisions(cow, movement, box, world, Collections.emptyList()).y);
+		});
+		
+		BenchmarkUtils.withConfig("coarseBlockCollisionScaleThreshold", 0.0D, () ->
+		{
+			results[1] = Entity.adjustMovementForCollisions(cow, movement, box, world, Collections.emptyList());
+			BenchmarkUtils.run("Scale " + SCALE + " block collisions, vanilla", ITERATIONS, i -> Entity.adjustMovementForCollisions(cow, movement, box, world, Collections.emptyList()).y);
+		});
+		
+		previous.forEach((p, state) -> world.setBlockState(p, state, Block.NOTIFY_LISTENERS | Block.FORCE_STATE));
+		cow.discard();
+		
+		context.assertTrue(results[0].equals(results[1]), "Coarse collisions adjusted movement to " + results[0] + " instead of " + results[1]);
+		context.complete();
+	}
+}
@@ -0,0 +1,116 @@
+package virtuoel.pehkui.gametest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.fabricmc.fabric.api.gametest.v1.FabricGameTest;
+import net.minecraft.block.Blocks;
+import net.minecraft.entity.EntityType;
+import net.minecraft.entity.passive.CowEntity;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.test.GameTest;
+import net.minecraft.test.TestContext;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.random.Random;
+import net.minecraft.world.GameRules;
+import virtuoel.kanos_config.api.MutableConfigEntry;
+import virtuoel.pehkui.Pehkui;
+import virtuoel.pehkui.api.ScaleTypes;
+
+public class CrammingBenchmarks implements FabricGameTest
+{
+	private static final int COWS = 5000;
+	private static final float SCALE = 0.05F;
+	private static final double THRESHOLD = 0.25D;
+	private static final int SETTLE_TICKS = 20;
+	private static final int MEASURED_TICKS = 100;
+	
+	/**
+	 * Compares the average server tick time with {@value #COWS} cows scaled to {@value #SCALE} in a 4x4 pen,
+	 * first with the cramming grid enabled and then with vanilla cramming queries.
+	 * AI is disabled so the tick time is dominated by cramming rather than pathfinding.
+	 */
+	@GameTest(templateName = EMPTY_STRUCTURE, batchId = "pehkui_cramming", tickLimit = 2 * (SETTLE_TICKS + MEASURED_TICKS) + 20)
+	public void tinyCowPen(final TestContext context)
+	{
+		final ServerWorld world = context.getWorld();
+		final MinecraftServer server = world.getServer();
+		final GameRules.IntRule maxCramming = world.getGameRules().get(GameRules.MAX_ENTITY_CRAMMING);
+		final int previousMaxCramming = maxCramming.get();
+		final MutableConfigEntry<Double> threshold = BenchmarkUtils.getConfig("crammingGridScaleThreshold");
+		final double previousThreshold = threshold.get();
+		
+		for (int x = 1; x <= 6; x++)
+		{
+			for (int z = 1; z <= 6; z++)
+			{
+				context.setBlockState(new BlockPos(x, 0, z), Blocks.BARRIER);
+				
+				if (x == 1 || x == 6 || z == 1 || z == 6)
+				{
+					context.setBlockState(new BlockPos(x, 1, z), Blocks.BARRIER);
+					context.setBlockState(new BlockPos(x, 2, z), Blocks.BARRIER);
+				}
+			}
+		}
+		
+		maxCramming.set(0, server);
+		
+		final BlockPos origin = context.getAbsolutePos(new BlockPos(2, 1, 2));
+		final Random random = world.getRandom();
+		final List<CowEntity> cows = new ArrayList<>(COWS);
+		
+		for (int i = 0; i < COWS; i++)
+		{
+			final CowEntity cow = EntityType.COW.create(world);
+			
+			ScaleTypes.BASE.getScaleData(cow).setScale(SCALE);
+			cow.setAiDisabled(true);
+			cow.refreshPositionAndAngles(origin.getX() + random.nextDouble() * 4.0D, origin.getY(), origin.getZ() + random.nextDouble() * 4.0D, 0.0F, 0.0F);
+			
+			world.spawnEntity(cow);
+			cows.add(cow);
+		}
+		
+		final double[] tickTimes = new double[2];
+		
+		threshold.setValue(THRESHOLD);
+		
+		context.waitAndRun(SETTLE_TICKS + MEASURED_TICKS, () ->
+		{
+			tickTimes[0] = getAverageTickTime(server);
+			threshold.setValue(0.0D);
+		});
+		
+		context.waitAndRun(2 * (SETTLE_TICKS + MEASURED_TICKS), () ->
+		{
+			tickTimes[1] = getAverageTickTime(server);
+			
+			threshold.setValue(previousThreshold);
+			maxCramming.set(previousMaxCramming, server);
+			cows.forEach(CowEntity::discard);
+			
+			Pehkui.LOGGER.info("[Benchmark] {} cows at scale {} in a 4x4 pen: {} ms/tick with the cramming grid, {} ms/tick without", COWS, SCALE, String.format("%.2f", tickTimes[0]), String.format("%.2f", tickTimes[1]));
+			
+			context.complete();
+		});
+	}
+	
+	/**
+	 * @return Average length of the last {@value #MEASURED_TICKS} server ticks, in milliseconds
+	 */
+	private static double getAverageTickTime(final MinecraftServer server)
+	{
+		final long[] lengths = server.lastTickLengths;
+		final int ticks = server.getTicks();
+		
+		long total = 0L;
+		for (int i = 1; i <= MEASURED_TICKS; i++)
+		{
+			total += lengths[Math.floorMod(ticks - i, lengths.length)];
+		}
+		
+		return total / (MEASURED_TICKS * 1_000_000.0D);
+	}
+}
@@ -0,0 +1,69 @@
+package virtuoel.pehkui.gametest;
+
+import java.util.SortedSet;
+import java.util.function.Supplier;
+
+import net.fabricmc.fabric.api.gametest.v1.FabricGameTest;
+import net.minecraft.test.GameTest;
+import net.minecraft.test.TestContext;
+import virtuoel.pehkui.api.ScaleData;
+import virtuoel.pehkui.api.ScaleModifier;
+import virtuoel.pehkui.api.ScaleTypes;
+import virtuoel.pehkui.util.ClampingScaleModifier;
+
+public class ScaleBenchmarks implements FabricGameTest
+{
+	private static final int ITERATIONS = 10_000_000;
+	
+	/**
+	 * Compares {@link ScaleData#getScale()} through the clamp bounds snapshot of {@link ClampingScaleModifier}
+	 * with a clamp that reads both bounds from their config entries on every evaluation.
+	 * Scale data without an entity is used so every lookup evaluates its modifiers.
+	 */
+	@GameTest(templateName = EMPTY_STRUCTURE)
+	public void clampedScale(final TestContext context)
+	{
+		final ScaleData snapshot = ScaleData.Builder.create().type(ScaleTypes.BASE).build();
+		final ScaleData supplied = ScaleData.Builder.create().type(ScaleTypes.BASE).build();
+		
+		final SortedSet<ScaleModifier> modifiers = supplied.getBaseValueModifiers();
+		modifiers.removeIf(m -> m instanceof ClampingScaleModifier);
+		modifiers.add(new SuppliedClampingScaleModifier(BenchmarkUtils.getConfig("base.minimum"), BenchmarkUtils.getConfig("base.maximum")));
+		
+		snapshot.setScale(2.0F);
+		supplied.setScale(2.0F);
+		
+		final double withSnapshot = BenchmarkUtils.run("getScale with clamp snapshot", ITERATIONS, i -> snapshot.getScale());
+		final double withSuppliers = BenchmarkUtils.run("getScale with clamp suppliers", ITERATIONS, i -> supplied.getScale());
+		
+		context.assertTrue(withSnapshot == withSuppliers, "Clamped scales differ");
+		context.complete();
+	}
+	
+	/**
+	 * Clamp as it was before bounds were snapshotted, unboxing both config values on every evaluation.
+	 */
+	private static class SuppliedClampingScaleModifier extends ScaleModifier
+	{
+		private final Supplier<Double> min, max;
+		
+		SuppliedClampingScaleModifier(final Supplier<Double> min, final Supplier<Double> max)
+		{
+			super(0.0F);
+			this.min = min;
+			this.max = max;
+		}
+		
+		@Override
+		public float modifyScale(final ScaleData scaleData, float modifiedScale, final float delta)
+		{
+			return Math.max(Math.min(modifiedScale, max.get().floatValue()), min.get().floatValue());
+		}
+		
+		@Override
+		public float modifyPrevScale(final ScaleData scaleData, float modifiedScale)
+		{
+			return Math.max(Math.min(modifiedScale, max.get().floatValue()), min.get().floatValue());
+		}
+	}
+}
@@ -6,8 +6,10 @@ import org.spongepowered.asm.service.MixinService;
 
 import net.fabricmc.api.ModInitializer;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
 import net.minecraft.util.Identifier;
 import virtuoel.pehkui.api.PehkuiConfig;
+import virtuoel.pehkui.api.PehkuiNetworkStats;
 import virtuoel.pehkui.api.ScaleOperations;
 import virtuoel.pehkui.api.ScaleTypes;
 import virtuoel.pehkui.command.PehkuiEntitySelectorOptions;
@@ -19,6 +21,8 @@ import virtuoel.pehkui.util.ImmersivePortalsCompatibility;
 import virtuoel.pehkui.util.ModLoaderUtils;
 import virtuoel.pehkui.util.MulticonnectCompatibility;
 import virtuoel.pehkui.util.ReachEntityAttributesCompatibility;
+import virtuoel.pehkui.util.ScaleRegistryTable;
+import virtuoel.pehkui.util.ScaleSyncQueue;
 
 @ApiStatus.Internal
 public class Pehkui implements ModInitializer
@@ -47,6 +51,8 @@ public class Pehkui implements ModInitializer
 		{
 			ServerPlayConnectionEvents.JOIN.register((handler, sender, server) ->
 			{
+				ScaleRegistryTable.sendTable(handler);
+				
 				if (!server.isHost(handler.player.getGameProfile()))
 				{
 					ConfigSyncUtils.syncConfigs(handler);
@@ -56,6 +62,28 @@ public class Pehkui implements ModInitializer
 					ConfigSyncUtils.resetSyncedConfigs();
 				}
 			});
+			
+			ServerPlayConnectionEvents.DISCONNECT.register((handler, server) ->
+			{
+				ScaleRegistryTable.removeTable(handler);
+				ScaleSyncQueue.remove(handler);
+				ConfigSyncUtils.removeSnapshot(handler);
+			});
+			
+			ServerPlayNetworking.registerGlobalReceiver(CONFIG_HASH_PACKET, (server, player, handler, buf, responseSender) ->
+			{
+				PehkuiNetworkStats.onPacketReceived(CONFIG_HASH_PACKET, buf.readableBytes(), 0);
+				
+				final long hash = buf.readLong();
+				
+				server.execute(() ->
+				{
+					if (!server.isHost(player.getGameProfile()))
+					{
+						ConfigSyncUtils.onClientSnapshotHash(handler, hash);
+					}
+				});
+			});
 		}
 		
 		GravityChangerCompatibility.INSTANCE.getClass();
@@ -76,6 +104,10 @@ public class Pehkui implements ModInitializer
 	}
 	
 	public static final Identifier SCALE_PACKET = id("scale");
+	public static final Identifier INDEXED_SCALE_PACKET = id("indexed_scale");
+	public static final Identifier REGISTRY_SYNC_PACKET = id("registry_sync");
 	public static final Identifier CONFIG_SYNC_PACKET = id("config_sync");
+	public static final Identifier CONFIG_SNAPSHOT_PACKET = id("config_snapshot");
+	public static final Identifier CONFIG_HASH_PACKET = id("config_hash");
 	public static final Identifier DEBUG_PACKET = id("debug");
 }
@@ -1,21 +1,34 @@
 package virtuoel.pehkui;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
 import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
 import org.spongepowered.asm.mixin.MixinEnvironment;
 
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
 import net.fabricmc.api.ClientModInitializer;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
 import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
+import net.minecraft.client.MinecraftClient;
 import net.minecraft.entity.Entity;
-import net.minecraft.nbt.NbtCompound;
+import net.minecraft.network.PacketByteBuf;
 import net.minecraft.util.Identifier;
+import virtuoel.pehkui.api.PehkuiNetworkStats;
+import virtuoel.pehkui.api.ScaleData;
 import virtuoel.pehkui.api.ScaleRegistries;
+import virtuoel.pehkui.api.ScaleType;
 import virtuoel.pehkui.server.command.DebugCommand;
 import virtuoel.pehkui.server.command.DebugCommand.DebugPacketType;
 import virtuoel.pehkui.util.ConfigSyncUtils;
 import virtuoel.pehkui.util.I18nUtils;
 import virtuoel.pehkui.util.MixinTargetClasses;
 import virtuoel.pehkui.util.ModLoaderUtils;
-import virtuoel.pehkui.util.ScaleUtils;
+import virtuoel.pehkui.util.ScaleRegistryTable;
 
 @ApiStatus.Internal
 public class PehkuiClient implements ClientModInitializer
@@ -27,38 +40,97 @@ public class PehkuiClient implements ClientModInitializer
 		{
 			ClientPlayNetworking.registerGlobalReceiver(Pehkui.SCALE_PACKET, (client, handler, buf, sender) ->
 			{
+				PehkuiNetworkStats.onPacketReceived(Pehkui.SCALE_PACKET, buf.readableBytes(), 1);
+				
 				final int id = buf.readVarInt();
 				
+				final ScaleUpdates updates = new ScaleUpdates();
+				
 				for (int i = buf.readInt(); i > 0; i--)
 				{
 					final Identifier typeId = buf.readIdentifier();
 					
-					final NbtCompound scaleData = ScaleUtils.buildScaleNbtFromPacketByteBuf(buf);
+					updates.add(id, typeId, ScaleData.readPacket(buf));
+				}
+				
+				updates.schedule(client);
+			});
+			
+			ClientPlayNetworking.registerGlobalReceiver(Pehkui.REGISTRY_SYNC_PACKET, (client, handler, buf, sender) ->
+			{
+				PehkuiNetworkStats.onPacketReceived(Pehkui.REGISTRY_SYNC_PACKET, buf.readableBytes(), 0);
+				
+				ScaleRegistryTable.setClientTable(ScaleRegistryTable.read(buf));
+			});
+			
+			ClientPlayNetworking.registerGlobalReceiver(Pehkui.INDEXED_SCALE_PACKET, (client, handler, buf, sender) ->
+			{
+				final ScaleRegistryTable ids = ScaleRegistryTable.getClientTable();
+				
+				if (ids == null)
+				{
+					Pehkui.LOGGER.warn("Received indexed scale packet before registry table from server.");
+					return;
+				}
+				
+				final ScaleUpdates updates = new ScaleUpdates();
+				
+				final int bytes = buf.readableBytes();
+				final int entityCount = buf.readVarInt();
+				
+				PehkuiNetworkStats.onPacketReceived(Pehkui.INDEXED_SCALE_PACKET, bytes, entityCount);
+				
+				for (int entities = entityCount; entities > 0; entities--)
+				{
+					final int id = buf.readVarInt();
 					
-					if (!ScaleRegistries.SCALE_TYPES.containsKey(typeId))
+					for (int i = buf.readVarInt(); i > 0; i--)
 					{
-						continue;
+						final Identifier typeId = ids.readType(buf);
+						
+						updates.add(id, typeId, ScaleData.readPacket(buf, ids));
 					}
+				}
+				
+				updates.schedule(client);
+			});
+			
+			ClientPlayConnectionEvents.DISCONNECT.register((handler, client) ->
+			{
+				ScaleRegistryTable.setClientTable(null);
+			});
+			
+			ClientPlayConnectionEvents.JOIN.register((handler, sender, client) ->
+			{
+				if (ClientPlayNetworking.canSend(Pehkui.CONFIG_HASH_PACKET))
+				{
+					final PacketByteBuf buffer = new PacketByteBuf(Unpooled.buffer());
 					
-					client.execute(() ->
-					{
-						final Entity e = client.world.getEntityById(id);
-						
-						if (e != null)
-						{
-							ScaleRegistries.getEntry(ScaleRegistries.SCALE_TYPES, typeId).getScaleData(e).readNbt(scaleData);
-						}
-					});
+					buffer.writeLong(ConfigSyncUtils.getClientSnapshotHash());
+					
+					PehkuiNetworkStats.onPacketSent(Pehkui.CONFIG_HASH_PACKET, buffer.readableBytes(), 0);
+					sender.sendPacket(Pehkui.CONFIG_HASH_PACKET, buffer);
 				}
 			});
 			
+			ClientPlayNetworking.registerGlobalReceiver(Pehkui.CONFIG_SNAPSHOT_PACKET, (client, handler, buf, sender) ->
+			{
+				PehkuiNetworkStats.onPacketReceived(Pehkui.CONFIG_SNAPSHOT_PACKET, buf.readableBytes(), 0);
+				
+				client.execute(ConfigSyncUtils.readConfigSnapshot(buf));
+			});
+			
 			ClientPlayNetworking.registerGlobalReceiver(Pehkui.CONFIG_SYNC_PACKET, (client, handler, buf, sender) ->
 			{
+				PehkuiNetworkStats.onPacketReceived(Pehkui.CONFIG_SYNC_PACKET, buf.readableBytes(), 0);
+				
 				client.execute(ConfigSyncUtils.readConfigs(buf));
 			});
 			
 			ClientPlayNetworking.registerGlobalReceiver(Pehkui.DEBUG_PACKET, (client, handler, buf, sender) ->
 			{
+				PehkuiNetworkStats.onPacketReceived(Pehkui.DEBUG_PACKET, buf.readableBytes(), 0);
+				
 				DebugPacketType read;
 				
 				try
@@ -112,4 +184,58 @@ public class PehkuiClient implements ClientModInitializer
 			Pehkui.LOGGER.error("Failed to register Pehkui's packet handlers! Is Fabric API's networking module missing?");
 		}
 	}
+	
+	/**
+	 * Scale data read from one packet, applied to entities in a single task on the main thread.
+	 */
+	private static final class ScaleUpdates
+	{
+		private final IntList entityIds = new IntArrayList();
+		private final List<ScaleType> types = new ArrayList<>();
+		private final List<Consumer<ScaleData>> scales = new ArrayList<>();
+		
+		private void add(final int entityId, @Nullable final Identifier typeId, final Consumer<ScaleData> scaleData)
+		{
+			final ScaleType type = typeId == null ? null : ScaleRegistries.getEntry(ScaleRegistries.SCALE_TYPES, typeId);
+			
+			if (type != null)
+			{
+				PehkuiNetworkStats.onScaleDataReceived(type);
+				
+				this.entityIds.add(entityId);
+				this.types.add(type);
+				this.scales.add(scaleData);
+			}
+		}
+		
+		private void schedule(final MinecraftClient client)
+		{
+			if (this.types.isEmpty())
+			{
+				return;
+			}
+			
+			client.execute(() ->
+			{
+				final int size = this.types.size();
+				
+				Entity e = null;
+				int id;
+				for (int i = 0; i < size; i++)
+				{
+					id = this.entityIds.getInt(i);
+					
+					if (e == null || e.getId() != id)
+					{
+						e = client.world.getEntityById(id);
+					}
+					
+					if (e != null)
+					{
+						this.scales.get(i).accept(this.types.get(i).getScaleData(e));
+					}
+				}
+			});
+		}
+	}
 }
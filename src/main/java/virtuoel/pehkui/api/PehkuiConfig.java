@@ -123,9 +123,19 @@ public class PehkuiConfig
 	
 	public static final class Server
 	{
+		public final Supplier<Integer> initialSyncEntitiesPerTick;
+		public final Supplier<Integer> initialSyncBytesPerTick;
+		
+		public final Supplier<Double> crammingGridScaleThreshold;
+		public final Supplier<Double> coarseBlockCollisionScaleThreshold;
+		
 		private Server(final JsonConfigBuilder builder)
 		{
+			this.initialSyncEntitiesPerTick = builder.intConfig("initialSyncEntitiesPerTick", 128);
+			this.initialSyncBytesPerTick = builder.intConfig("initialSyncBytesPerTick", 32768);
 			
+			this.crammingGridScaleThreshold = builder.doubleConfig("crammingGridScaleThreshold", 0.0D);
+			this.coarseBlockCollisionScaleThreshold = builder.doubleConfig(synced("coarseBlockCollisionScaleThreshold", "double"), 0.0D);
 		}
 	}
 	
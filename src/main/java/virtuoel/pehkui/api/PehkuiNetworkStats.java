@@ -0,0 +1,223 @@
+package virtuoel.pehkui.api;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jetbrains.annotations.ApiStatus;
+
+import net.minecraft.util.Identifier;
+
+/**
+ * Counters of the traffic on Pehkui's network channels, for exporting to monitoring systems.
+ * <p>Counters keep growing until {@link #reset()} is called. Byte counts are of packet payloads.
+ */
+public final class PehkuiNetworkStats
+{
+	/**
+	 * Why scale data was sent to a client.
+	 */
+	public static enum SyncKind
+	{
+		/**
+		 * Sent because the client started tracking the entity.
+		 */
+		INITIAL,
+		/**
+		 * Sent because the scale data changed.
+		 */
+		DIRTY;
+	}
+	
+	public static final class Counter
+	{
+		private final LongAdder packets = new LongAdder();
+		private final LongAdder bytes = new LongAdder();
+		private final LongAdder entities = new LongAdder();
+		private final LongAdder scaleData = new LongAdder();
+		
+		private Counter()
+		{
+			
+		}
+		
+		public long getPackets()
+		{
+			return packets.sum();
+		}
+		
+		public long getBytes()
+		{
+			return bytes.sum();
+		}
+		
+		public long getEntities()
+		{
+			return entities.sum();
+		}
+		
+		public long getScaleData()
+		{
+			return scaleData.sum();
+		}
+		
+		private void reset()
+		{
+			packets.reset();
+			bytes.reset();
+			entities.reset();
+			scaleData.reset();
+		}
+	}
+	
+	private static final Map<Identifier, Counter> SENT_CHANNELS = new ConcurrentHashMap<>();
+	private static final Map<Identifier, Counter> RECEIVED_CHANNELS = new ConcurrentHashMap<>();
+	private static final Counter[] SENT_SYNCS = { new Counter(), new Counter() };
+	@SuppressWarnings("unchecked")
+	private static final Map<ScaleType, Counter>[] SENT_TYPES = new Map[] { new ConcurrentHashMap<>(), new ConcurrentHashMap<>() };
+	private static final Map<ScaleType, Counter> RECEIVED_TYPES = new ConcurrentHashMap<>();
+	
+	/**
+	 * @return Packets, bytes and entities sent per channel
+	 */
+	public static Map<Identifier, Counter> getSentChannels()
+	{
+		return Collections.unmodifiableMap(SENT_CHANNELS);
+	}
+	
+	/**
+	 * @return Packets, bytes and entities received per channel
+	 */
+	public static Map<Identifier, Counter> getReceivedChannels()
+	{
+		return Collections.unmodifiableMap(RECEIVED_CHANNELS);
+	}
+	
+	/**
+	 * @return Bytes, entities and scale data sent to players for the given reason, counted once per receiving player
+	 */
+	public static Counter getSentSyncs(SyncKind kind)
+	{
+		return SENT_SYNCS[kind.ordinal()];
+	}
+	
+	/**
+	 * @return Scale data sent per scale type for the given reason, counted once per receiving player
+	 */
+	public static Map<ScaleType, Counter> getSentTypes(SyncKind kind)
+	{
+		return Collections.unmodifiableMap(SENT_TYPES[kind.ordinal()]);
+	}
+	
+	/**
+	 * @return Scale data received per scale type. Entities are not counted per type, see {@link #getReceivedChannels()} for received entity counts.
+	 */
+	public static Map<ScaleType, Counter> getReceivedTypes()
+	{
+		return Collections.unmodifiableMap(RECEIVED_TYPES);
+	}
+	
+	public static void reset()
+	{
+		SENT_CHANNELS.values().forEach(Counter::reset);
+		RECEIVED_CHANNELS.values().forEach(Counter::reset);
+		
+		for (final Counter counter : SENT_SYNCS)
+		{
+			counter.reset();
+		}
+		
+		for (final Map<ScaleType, Counter> types : SENT_TYPES)
+		{
+			types.values().forEach(Counter::reset);
+		}
+		
+		RECEIVED_TYPES.values().forEach(Counter::reset);
+	}
+	
+	@ApiStatus.Internal
+	public static void onPacketSent(Identifier channel, int bytes, int entities)
+	{
+		record(SENT_CHANNELS, channel, bytes, entities);
+	}
+	
+	@ApiStatus.Internal
+	public static void onPacketReceived(Identifier channel, int bytes, int entities)
+	{
+		record(RECEIVED_CHANNELS, channel, bytes, entities);
+	}
+	
+	private static void record(Map<Identifier, Counter> channels, Identifier channel, int bytes, int entities)
+	{
+		final Counter counter = channels.computeIfAbsent(channel, c -> new Counter());
+		
+		counter.packets.increment();
+		counter.bytes.add(bytes);
+		counter.entities.add(entities);
+	}
+	
+	/**
+	 * Records the scale data of one entity being sent to some number of players.
+	 * 
+	 * @param bytes Total bytes of scale data sent to all of the players
+	 */
+	@ApiStatus.Internal
+	public static void onScalesSent(SyncKind kind, Collection<ScaleData> scales, int bytes, int players)
+	{
+		if (players == 0)
+		{
+			return;
+		}
+		
+		recordSync(kind, scales.size(), bytes, players);
+		
+		for (final ScaleData scaleData : scales)
+		{
+			recordType(kind, scaleData.getScaleType(), players);
+		}
+	}
+	
+	/**
+	 * Records the encoded scale data of one entity being sent to one player.
+	 */
+	@ApiStatus.Internal
+	public static void onScalesSent(SyncKind kind, ScaleData.Snapshot[] scales, int bytes)
+	{
+		recordSync(kind, scales.length, bytes, 1);
+		
+		for (final ScaleData.Snapshot snapshot : scales)
+		{
+			recordType(kind, snapshot.getScaleType(), 1);
+		}
+	}
+	
+	private static void recordSync(SyncKind kind, int scaleData, int bytes, int players)
+	{
+		final Counter counter = SENT_SYNCS[kind.ordinal()];
+		
+		counter.bytes.add(bytes);
+		counter.entities.add(players);
+		counter.scaleData.add((long) scaleData * players);
+	}
+	
+	private static void recordType(SyncKind kind, ScaleType type, int players)
+	{
+		final Counter counter = SENT_TYPES[kind.ordinal()].computeIfAbsent(type, t -> new Counter());
+		
+		counter.entities.add(players);
+		counter.scaleData.add(players);
+	}
+	
+	@ApiStatus.Internal
+	public static void onScaleDataReceived(ScaleType type)
+	{
+		RECEIVED_TYPES.computeIfAbsent(type, t -> new Counter()).scaleData.increment();
+	}
+	
+	private PehkuiNetworkStats()
+	{
+		
+	}
+}
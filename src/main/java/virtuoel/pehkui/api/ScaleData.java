@@ -1,8 +1,14 @@
 package virtuoel.pehkui.api;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.SortedSet;
+import java.util.function.Consumer;
 
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Nullable;
@@ -11,14 +17,15 @@ import it.unimi.dsi.fastutil.floats.Float2FloatFunction;
 import it.unimi.dsi.fastutil.objects.ObjectAVLTreeSet;
 import net.fabricmc.fabric.api.util.NbtType;
 import net.minecraft.entity.Entity;
-import net.minecraft.entity.EntityType;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.nbt.NbtElement;
 import net.minecraft.nbt.NbtList;
 import net.minecraft.nbt.NbtOps;
 import net.minecraft.network.PacketByteBuf;
 import net.minecraft.util.Identifier;
+import virtuoel.pehkui.util.CompiledScaleModifiers;
 import virtuoel.pehkui.util.PehkuiEntityExtensions;
+import virtuoel.pehkui.util.ScaleRegistryTable;
 
 public class ScaleData
 {
@@ -38,17 +45,27 @@ public class ScaleData
 	@Nullable
 	private final Entity entity;
 	
-	private final SortedSet<ScaleModifier> baseValueModifiers;
-	private final SortedSet<ScaleModifier> differingModifierCache;
+	/**
+	 * Null until first accessed, in which case the scale type's default modifiers are in effect.
+	 */
+	@Nullable
+	private SortedSet<ScaleModifier> baseValueModifiers;
+	private SortedSet<ScaleModifier> differingModifierCache;
+	@Nullable
+	private CompiledScaleModifiers compiledModifiers = null;
 	private boolean trackModifierChanges;
 	private float cachedScale = Float.NaN;
 	private float cachedPrevScale = Float.NaN;
+	private int cachedScaleVersion = 0;
+	private int cachedPrevScaleVersion = 0;
+	private float cachedFrameScale = Float.NaN;
+	private float cachedFrameDelta = Float.NaN;
+	private int cachedFrameScaleVersion = 0;
 	
 	/**
 	 * @see {@link ScaleType#getScaleData(Entity)}
 	 * @see {@link ScaleData.Builder#create()}
 	 */
-	@SuppressWarnings("serial")
 	@ApiStatus.Internal
 	protected ScaleData(ScaleType scaleType, @Nullable Entity entity)
 	{
@@ -66,13 +83,25 @@ public class ScaleData
 		
 		this.shouldSync = false;
 		
-		this.baseValueModifiers = new ObjectAVLTreeSet<ScaleModifier>()
+		this.baseValueModifiers = null;
+		this.differingModifierCache = Collections.emptySortedSet();
+		
+		this.trackModifierChanges = true;
+		
+		markFieldsSynced();
+	}
+	
+	@SuppressWarnings("serial")
+	private SortedSet<ScaleModifier> createModifierSet()
+	{
+		final SortedSet<ScaleModifier> modifiers = new ObjectAVLTreeSet<ScaleModifier>()
 		{
 			@Override
 			public boolean add(ScaleModifier arg0)
 			{
 				if (super.add(arg0))
 				{
+					ScaleData.this.compiledModifiers = null;
 					invalidateCachedScales();
 					
 					if (ScaleData.this.trackModifierChanges)
@@ -92,6 +121,7 @@ public class ScaleData
 			{
 				if (super.remove(arg0))
 				{
+					ScaleData.this.compiledModifiers = null;
 					invalidateCachedScales();
 					
 					if (ScaleData.this.trackModifierChanges)
@@ -105,25 +135,37 @@ public class ScaleData
 				
 				return false;
 			}
+			
+			@Override
+			public void clear()
+			{
+				super.clear();
+				ScaleData.this.compiledModifiers = null;
+				invalidateCachedScales();
+			}
 		};
 		
-		this.differingModifierCache = new ObjectAVLTreeSet<>();
+		final boolean trackModifierChanges = this.trackModifierChanges;
 		
 		this.trackModifierChanges = false;
 		
-		getBaseValueModifiers().addAll(getScaleType().getDefaultBaseValueModifiers());
+		modifiers.addAll(getScaleType().getDefaultBaseValueModifiers());
 		
-		this.trackModifierChanges = true;
+		this.trackModifierChanges = trackModifierChanges;
+		
+		return modifiers;
 	}
 	
 	/**
-	 * Called at the start of {@link Entity#tick()}.
+	 * Called at the start of {@link Entity#tick()} while {@link #shouldTick()} returns true.
 	 * <p>Pre and post tick callbacks are not invoked here. If calling this manually, be sure to invoke callbacks!
 	 */
 	public void tick()
 	{
 		invalidateCachedScales();
 		
+		final boolean transitionSynced = isTransitionSynced();
+		
 		final float currScale = getBaseScale();
 		final float targetScale = getTargetScale();
 		
@@ -135,12 +177,12 @@ public class ScaleData
 			{
 				this.initialScale = targetScale;
 				this.scaleTicks = 0;
-				setBaseScale(targetScale);
+				setSimulatedBaseScale(targetScale);
 			}
 			else
 			{
 				this.scaleTicks++;
-				setBaseScale(calculateScaleForTick(this.scaleTicks, 0));
+				setSimulatedBaseScale(calculateScaleForTick(this.scaleTicks, 0));
 			}
 		}
 		else
@@ -162,6 +204,82 @@ public class ScaleData
 				this.scaleTicks = 0;
 			}
 		}
+		
+		if (transitionSynced)
+		{
+			this.syncedBaseScale = this.baseScale;
+			this.syncedPrevBaseScale = this.prevBaseScale;
+			this.syncedInitialScale = this.initialScale;
+			this.syncedScaleTicks = this.scaleTicks;
+		}
+	}
+	
+	private boolean simulatingTick = false;
+	
+	/**
+	 * Sets the base scale as part of a transition. Clients advance transitions themselves,
+	 * so this notifies listeners without marking the scale data for syncing.
+	 */
+	private void setSimulatedBaseScale(float scale)
+	{
+		this.simulatingTick = true;
+		
+		try
+		{
+			setBaseScale(scale);
+		}
+		finally
+		{
+			this.simulatingTick = false;
+		}
+	}
+	
+	/**
+	 * @return Whether the base scale is currently being changed by a transition tick instead of being set directly
+	 */
+	@ApiStatus.Internal
+	public boolean isSimulatingTick()
+	{
+		return this.simulatingTick;
+	}
+	
+	/**
+	 * Checks if every tracking client has the same transition state as the server, in which case
+	 * they tick to the same values and the synced values can be advanced along with the transition.
+	 */
+	private boolean isTransitionSynced()
+	{
+		return this.forcedSyncFields == 0 &&
+			this.baseScale == this.syncedBaseScale &&
+			this.prevBaseScale == this.syncedPrevBaseScale &&
+			this.initialScale == this.syncedInitialScale &&
+			this.targetScale == this.syncedTargetScale &&
+			this.scaleTicks == this.syncedScaleTicks &&
+			this.totalScaleTicks == this.syncedTotalScaleTicks &&
+			this.easing == this.syncedEasing;
+	}
+	
+	/**
+	 * Checks if this scale data is transitioning or otherwise has state that {@link #tick()} would change.
+	 * Scale data that does not need ticking is skipped by the entity tick loop unless its type is always ticked.
+	 * 
+	 * @return Whether this scale data needs to be ticked
+	 * @see {@link ScaleType#setAlwaysTicked(boolean)}
+	 */
+	@ApiStatus.Internal
+	public boolean shouldTick()
+	{
+		return this.baseScale != this.targetScale || this.prevBaseScale != this.baseScale || this.initialScale != this.targetScale || this.scaleTicks != 0;
+	}
+	
+	private void scheduleTickIfNeeded()
+	{
+		final Entity e = getEntity();
+		
+		if (e != null && shouldTick())
+		{
+			((PehkuiEntityExtensions) e).pehkui_scheduleScaleTick(this);
+		}
 	}
 	
 	public ScaleType getScaleType()
@@ -181,7 +299,62 @@ public class ScaleData
 	 */
 	public SortedSet<ScaleModifier> getBaseValueModifiers()
 	{
-		return baseValueModifiers;
+		SortedSet<ScaleModifier> modifiers = this.baseValueModifiers;
+		
+		if (modifiers == null)
+		{
+			this.baseValueModifiers = modifiers = createModifierSet();
+		}
+		
+		return modifiers;
+	}
+	
+	/**
+	 * Returns the scale modifiers currently in effect without creating a mutable copy of the scale type's defaults.
+	 * @return Read-only view of scale modifiers sorted by priority
+	 */
+	@ApiStatus.Internal
+	public Collection<ScaleModifier> getEffectiveModifiers()
+	{
+		final SortedSet<ScaleModifier> modifiers = this.baseValueModifiers;
+		
+		return modifiers != null ? modifiers : getScaleType().getDefaultBaseValueModifiers();
+	}
+	
+	@ApiStatus.Internal
+	public CompiledScaleModifiers getCompiledModifiers()
+	{
+		if (this.baseValueModifiers == null)
+		{
+			return getScaleType().getCompiledDefaultModifiers();
+		}
+		
+		CompiledScaleModifiers compiled = this.compiledModifiers;
+		
+		if (compiled == null)
+		{
+			this.compiledModifiers = compiled = CompiledScaleModifiers.compile(this.baseValueModifiers);
+		}
+		
+		return compiled;
+	}
+	
+	private CompiledScaleModifiers getCompiledModifiers(@Nullable final Entity e)
+	{
+		final CompiledScaleModifiers compiled = getCompiledModifiers();
+		
+		if (e != null && !compiled.isCacheable())
+		{
+			((PehkuiEntityExtensions) e).pehkui_markVolatileScaleModifiers();
+		}
+		
+		return compiled;
+	}
+	
+	@ApiStatus.Internal
+	public boolean hasDifferingModifiers()
+	{
+		return !this.differingModifierCache.isEmpty();
 	}
 	
 	/**
@@ -238,28 +411,53 @@ public class ScaleData
 	public float getScale(float delta)
 	{
 		final Entity e = getEntity();
-		final boolean canCache = delta == 1.0F && e != null && e.getEntityWorld() != null && !e.getEntityWorld().isClient && (e.getType() != EntityType.PLAYER || !getScaleType().getAffectsDimensions()) && !((PehkuiEntityExtensions) e).pehkui_isFirstUpdate();
 		
-		if (canCache && !Float.isNaN(cachedScale))
+		if (e != null && e.getEntityWorld() != null && e.getEntityWorld().isClient)
 		{
-			return cachedScale;
+			return getClientScale((PehkuiEntityExtensions) e, delta);
 		}
 		
-		float value = getBaseScale(delta);
+		final boolean canCache = delta == 1.0F && e != null && e.getEntityWorld() != null;
+		final int version = canCache ? ((PehkuiEntityExtensions) e).pehkui_getScaleCacheVersion() : 0;
 		
-		for (final ScaleModifier m : getBaseValueModifiers())
+		if (canCache && version == cachedScaleVersion && !Float.isNaN(cachedScale))
 		{
-			value = m.modifyScale(this, value, delta);
+			return cachedScale;
 		}
 		
+		final float value = getCompiledModifiers(e).modifyScale(this, getBaseScale(delta), delta);
+		
 		if (canCache)
 		{
 			cachedScale = value;
+			cachedScaleVersion = version;
 		}
 		
 		return value;
 	}
 	
+	/**
+	 * Client side, the same tick delta is used for every lookup made while rendering a frame.
+	 * The result is cached for the last seen delta until the entity ticks or any of its scale data changes.
+	 */
+	private float getClientScale(final PehkuiEntityExtensions entity, final float delta)
+	{
+		final int version = entity.pehkui_getScaleCacheVersion();
+		
+		if (version == cachedFrameScaleVersion && Float.floatToIntBits(delta) == Float.floatToIntBits(cachedFrameDelta) && !Float.isNaN(cachedFrameScale))
+		{
+			return cachedFrameScale;
+		}
+		
+		final float value = getCompiledModifiers(getEntity()).modifyScale(this, getBaseScale(delta), delta);
+		
+		cachedFrameScale = value;
+		cachedFrameDelta = delta;
+		cachedFrameScaleVersion = version;
+		
+		return value;
+	}
+	
 	/**
 	 * Helper for instant resizing that sets both the base scale and target scale.
 	 * 
@@ -295,6 +493,7 @@ public class ScaleData
 		this.targetScale = targetScale;
 		
 		markForSync(true);
+		scheduleTickIfNeeded();
 	}
 	
 	@ApiStatus.Internal
@@ -352,19 +551,18 @@ public class ScaleData
 	 */
 	public float getPrevScale()
 	{
-		if (!Float.isNaN(cachedPrevScale))
+		final Entity e = getEntity();
+		final int version = e == null ? 0 : ((PehkuiEntityExtensions) e).pehkui_getScaleCacheVersion();
+		
+		if (version == cachedPrevScaleVersion && !Float.isNaN(cachedPrevScale))
 		{
 			return cachedPrevScale;
 		}
 		
-		float value = getPrevBaseScale();
-		
-		for (final ScaleModifier m : getBaseValueModifiers())
-		{
-			value = m.modifyPrevScale(this, value);
-		}
+		final float value = getCompiledModifiers(e).modifyPrevScale(this, getPrevBaseScale());
 		
 		cachedPrevScale = value;
+		cachedPrevScaleVersion = version;
 		
 		return value;
 	}
@@ -411,7 +609,7 @@ public class ScaleData
 	{
 		final Entity e = getEntity();
 		
-		if (e != null && e.getEntityWorld() != null && !e.getEntityWorld().isClient)
+		if (e != null && e.getEntityWorld() != null && !e.getEntityWorld().isClient && getScaleType().getSyncPolicy() != ScaleType.SyncPolicy.NONE)
 		{
 			this.shouldSync = sync;
 			if (this.shouldSync)
@@ -433,21 +631,120 @@ public class ScaleData
 	public void onUpdate()
 	{
 		invalidateCachedScales();
-		markForSync(true);
+		
+		if (!this.simulatingTick)
+		{
+			markForSync(true);
+		}
+		
+		final Entity e = getEntity();
+		
+		if (e == null || !((PehkuiEntityExtensions) e).pehkui_deferScaleUpdate(this))
+		{
+			notifyUpdate();
+		}
+	}
+	
+	/**
+	 * Invokes scale change events. Called by {@link #onUpdate()}, or once per changed scale data when a batch finishes.
+	 */
+	@ApiStatus.Internal
+	public void notifyUpdate()
+	{
 		getScaleType().getScaleChangedEvent().invoker().onEvent(this);
+		scheduleTickIfNeeded();
+	}
+	
+	/**
+	 * Applies several changes to this scale data as a single update.
+	 * 
+	 * @param changes Callback that modifies the given scale data
+	 * @see #batch(Entity, Runnable)
+	 */
+	public void batch(Consumer<ScaleData> changes)
+	{
+		batch(getEntity(), () -> changes.accept(this));
+	}
+	
+	/**
+	 * Applies changes to any scale data of the given entity as a single update.
+	 * <p>Scale change events are deferred until the outermost batch on the entity finishes,
+	 * then invoked once for each scale data that changed, followed by at most one dimension recalculation.
+	 * 
+	 * @param entity Entity whose scale data is being modified
+	 * @param changes Callback that modifies the scale data of the entity
+	 */
+	public static void batch(@Nullable Entity entity, Runnable changes)
+	{
+		if (entity == null)
+		{
+			changes.run();
+			return;
+		}
+		
+		final PehkuiEntityExtensions e = (PehkuiEntityExtensions) entity;
+		
+		e.pehkui_beginScaleBatch();
+		
+		try
+		{
+			changes.run();
+		}
+		finally
+		{
+			e.pehkui_endScaleBatch();
+		}
 	}
 	
 	private void invalidateCachedModifiers()
 	{
-		this.differingModifierCache.clear();
-		this.differingModifierCache.addAll(getBaseValueModifiers());
-		this.differingModifierCache.removeAll(getScaleType().getDefaultBaseValueModifiers());
+		final Set<ScaleModifier> defaultModifiers = getScaleType().getDefaultBaseValueModifiers();
+		
+		SortedSet<ScaleModifier> differing = null;
+		
+		for (final ScaleModifier modifier : getEffectiveModifiers())
+		{
+			if (!defaultModifiers.contains(modifier))
+			{
+				if (differing == null)
+				{
+					differing = new ObjectAVLTreeSet<>();
+				}
+				
+				differing.add(modifier);
+			}
+		}
+		
+		this.differingModifierCache = differing == null ? Collections.emptySortedSet() : differing;
+	}
+	
+	private void clearModifiers()
+	{
+		final SortedSet<ScaleModifier> baseValueModifiers = this.baseValueModifiers;
+		
+		if (baseValueModifiers != null)
+		{
+			baseValueModifiers.clear();
+			baseValueModifiers.addAll(getScaleType().getDefaultBaseValueModifiers());
+		}
+		
+		this.differingModifierCache = Collections.emptySortedSet();
+		
+		invalidateCachedScales();
 	}
 	
 	private void invalidateCachedScales()
 	{
 		this.cachedScale = Float.NaN;
 		this.cachedPrevScale = Float.NaN;
+		this.cachedFrameScale = Float.NaN;
+		
+		final Entity e = getEntity();
+		
+		if (e != null)
+		{
+			((PehkuiEntityExtensions) e).pehkui_invalidateScaleCaches();
+		}
 	}
 	
 	public PacketByteBuf toPacket(PacketByteBuf buffer)
@@ -480,6 +777,639 @@ public class ScaleData
 		return buffer;
 	}
 	
+	private static final int SYNC_BASE_SCALE = 1 << 0;
+	private static final int SYNC_PREV_SCALE = 1 << 1;
+	private static final int SYNC_INITIAL_SCALE = 1 << 2;
+	private static final int SYNC_TARGET_SCALE = 1 << 3;
+	private static final int SYNC_SCALE_TICKS = 1 << 4;
+	private static final int SYNC_TOTAL_SCALE_TICKS = 1 << 5;
+	private static final int SYNC_MODIFIERS = 1 << 6;
+	private static final int SYNC_PERSISTENCE = 1 << 7;
+	private static final int SYNC_EASING = 1 << 8;
+	private static final int SYNC_QUANTIZED = 1 << 9;
+	
+	@ApiStatus.Internal
+	public static final int SYNC_ALL = (1 << 9) - 1;
+	
+	private float syncedBaseScale;
+	private float syncedPrevBaseScale;
+	private float syncedInitialScale;
+	private float syncedTargetScale;
+	private int syncedScaleTicks;
+	private int syncedTotalScaleTicks;
+	private SortedSet<ScaleModifier> syncedModifiers;
+	private Boolean syncedPersistence;
+	private Float2FloatFunction syncedEasing;
+	private int forcedSyncFields = 0;
+	
+	/**
+	 * Gets the fields that differ from the values last synced to tracking clients.
+	 * 
+	 * @return Bitmask of changed fields
+	 */
+	@ApiStatus.Internal
+	public int getUnsyncedFields()
+	{
+		int fields = this.forcedSyncFields;
+		
+		if (this.baseScale != this.syncedBaseScale)
+		{
+			fields |= SYNC_BASE_SCALE;
+		}
+		
+		if (this.prevBaseScale != this.syncedPrevBaseScale)
+		{
+			fields |= SYNC_PREV_SCALE;
+		}
+		
+		if (this.initialScale != this.syncedInitialScale)
+		{
+			fields |= SYNC_INITIAL_SCALE;
+		}
+		
+		if (this.targetScale != this.syncedTargetScale)
+		{
+			fields |= SYNC_TARGET_SCALE;
+		}
+		
+		if (this.scaleTicks != this.syncedScaleTicks)
+		{
+			fields |= SYNC_SCALE_TICKS;
+		}
+		
+		if (this.totalScaleTicks != this.syncedTotalScaleTicks)
+		{
+			fields |= SYNC_TOTAL_SCALE_TICKS;
+		}
+		
+		if (this.differingModifierCache != this.syncedModifiers)
+		{
+			fields |= SYNC_MODIFIERS;
+		}
+		
+		if (!Objects.equals(this.persistent, this.syncedPersistence))
+		{
+			fields |= SYNC_PERSISTENCE;
+		}
+		
+		if (this.easing != this.syncedEasing)
+		{
+			fields |= SYNC_EASING;
+		}
+		
+		return fields;
+	}
+	
+	/**
+	 * @return Bitmask of the fields that are synced for this scale data's type, based on its {@link ScaleType.SyncPolicy}
+	 */
+	@ApiStatus.Internal
+	public int getSyncableFields()
+	{
+		return getScaleType().getSyncPolicy() == ScaleType.SyncPolicy.DERIVED_ONLY ? SYNC_MODIFIERS : SYNC_ALL;
+	}
+	
+	/**
+	 * Records the current values as the ones every tracking client has received.
+	 */
+	@ApiStatus.Internal
+	public void markFieldsSynced()
+	{
+		this.syncedBaseScale = this.baseScale;
+		this.syncedPrevBaseScale = this.prevBaseScale;
+		this.syncedInitialScale = this.initialScale;
+		this.syncedTargetScale = this.targetScale;
+		this.syncedScaleTicks = this.scaleTicks;
+		this.syncedTotalScaleTicks = this.totalScaleTicks;
+		this.syncedModifiers = this.differingModifierCache;
+		this.syncedPersistence = this.persistent;
+		this.syncedEasing = this.easing;
+		this.forcedSyncFields = 0;
+	}
+	
+	/**
+	 * Called when a client starts tracking the entity and is sent its current values.
+	 * Fields where those differ from the last synced values are included in the next delta,
+	 * so the new client is not left out when a field changes back to its last synced value.
+	 */
+	@ApiStatus.Internal
+	public void onStartedTracking()
+	{
+		this.forcedSyncFields = getUnsyncedFields();
+	}
+	
+	/**
+	 * Copies the fields of this scale data that need to be synced, so they can be encoded off the server thread.
+	 * 
+	 * @param delta Whether to only copy fields that changed since the last sync, instead of all of them
+	 * @return The copied fields, or null if there are none to sync
+	 */
+	@ApiStatus.Internal
+	public @Nullable Snapshot createSnapshot(boolean delta)
+	{
+		final int fields = (delta ? getUnsyncedFields() : SYNC_ALL) & getSyncableFields();
+		
+		return fields == 0 ? null : new Snapshot(this, fields);
+	}
+	
+	/**
+	 * Immutable copy of some fields of scale data, written in the compact format used after the registry table handshake.
+	 */
+	@ApiStatus.Internal
+	public static final class Snapshot
+	{
+		private final ScaleType scaleType;
+		private final int fields;
+		private final float baseScale;
+		private final float prevBaseScale;
+		private final float initialScale;
+		private final float targetScale;
+		private final int scaleTicks;
+		private final int totalScaleTicks;
+		private final ScaleModifier[] modifiers;
+		private final Boolean persistent;
+		private final Float2FloatFunction easing;
+		
+		private Snapshot(ScaleData scaleData, int fields)
+		{
+			this.scaleType = scaleData.getScaleType();
+			this.fields = canQuantize(this.scaleType, scaleData, fields) ? fields | SYNC_QUANTIZED : fields;
+			this.baseScale = scaleData.baseScale;
+			this.prevBaseScale = scaleData.prevBaseScale;
+			this.initialScale = scaleData.initialScale;
+			this.targetScale = scaleData.targetScale;
+			this.scaleTicks = scaleData.scaleTicks;
+			this.totalScaleTicks = scaleData.totalScaleTicks;
+			this.modifiers = (fields & SYNC_MODIFIERS) != 0 ? scaleData.differingModifierCache.toArray(new ScaleModifier[0]) : null;
+			this.persistent = scaleData.persistent;
+			this.easing = scaleData.easing;
+		}
+		
+		public ScaleType getScaleType()
+		{
+			return this.scaleType;
+		}
+		
+		/**
+		 * @return Upper bound of the number of bytes {@link #write(PacketByteBuf, ScaleRegistryTable)} writes when every entry is in the table
+		 */
+		public int getMaxSize()
+		{
+			int size = 2;
+			
+			size += (this.fields & SYNC_BASE_SCALE) != 0 ? 4 : 0;
+			size += (this.fields & SYNC_PREV_SCALE) != 0 ? 4 : 0;
+			size += (this.fields & SYNC_INITIAL_SCALE) != 0 ? 4 : 0;
+			size += (this.fields & SYNC_TARGET_SCALE) != 0 ? 4 : 0;
+			size += (this.fields & SYNC_SCALE_TICKS) != 0 ? 5 : 0;
+			size += (this.fields & SYNC_TOTAL_SCALE_TICKS) != 0 ? 5 : 0;
+			size += this.modifiers != null ? 5 + 5 * this.modifiers.length : 0;
+			size += (this.fields & SYNC_PERSISTENCE) != 0 ? 1 : 0;
+			size += (this.fields & SYNC_EASING) != 0 ? 6 : 0;
+			
+			return size;
+		}
+		
+		/**
+		 * Writes the copied fields. Safe to call from any thread.
+		 * 
+		 * @param ids Registry table the receiving client was sent
+		 */
+		public PacketByteBuf write(PacketByteBuf buffer, ScaleRegistryTable ids)
+		{
+			final int fields = this.fields;
+			final boolean quantized = (fields & SYNC_QUANTIZED) != 0;
+			
+			buffer.writeVarInt(fields);
+			
+			if ((fields & SYNC_BASE_SCALE) != 0)
+			{
+				writeScale(buffer, this.baseScale, quantized);
+			}
+			
+			if ((fields & SYNC_PREV_SCALE) != 0)
+			{
+				writeScale(buffer, this.prevBaseScale, quantized);
+			}
+			
+			if ((fields & SYNC_INITIAL_SCALE) != 0)
+			{
+				buffer.writeFloat(this.initialScale);
+			}
+			
+			if ((fields & SYNC_TARGET_SCALE) != 0)
+			{
+				buffer.writeFloat(this.targetScale);
+			}
+			
+			if ((fields & SYNC_SCALE_TICKS) != 0)
+			{
+				buffer.writeVarInt(this.scaleTicks);
+			}
+			
+			if ((fields & SYNC_TOTAL_SCALE_TICKS) != 0)
+			{
+				buffer.writeVarInt(this.totalScaleTicks);
+			}
+			
+			if ((fields & SYNC_MODIFIERS) != 0)
+			{
+				buffer.writeVarInt(this.modifiers.length);
+				
+				for (final ScaleModifier modifier : this.modifiers)
+				{
+					ids.writeModifier(buffer, modifier);
+				}
+			}
+			
+			if ((fields & SYNC_PERSISTENCE) != 0)
+			{
+				buffer.writeByte(this.persistent == null ? -1 : this.persistent ? 1 : 0);
+			}
+			
+			if ((fields & SYNC_EASING) != 0)
+			{
+				buffer.writeBoolean(this.easing != null);
+				
+				if (this.easing != null)
+				{
+					ids.writeEasing(buffer, this.easing);
+				}
+			}
+			
+			return buffer;
+		}
+	}
+	
+	/**
+	 * Reads scale data written by {@link #toPacket(PacketByteBuf)}, without building an intermediate {@link NbtCompound}.
+	 * 
+	 * @return Callback that applies the fields that were read to scale data
+	 */
+	@ApiStatus.Internal
+	public static Consumer<ScaleData> readPacket(PacketByteBuf buffer)
+	{
+		final PacketFields packet = new PacketFields(SYNC_ALL);
+		
+		packet.baseScale = buffer.readFloat();
+		packet.prevBaseScale = buffer.readFloat();
+		packet.initialScale = buffer.readFloat();
+		packet.targetScale = buffer.readFloat();
+		packet.scaleTicks = buffer.readInt();
+		packet.totalScaleTicks = buffer.readInt();
+		
+		final int modifierCount = buffer.readInt();
+		
+		if (modifierCount != 0)
+		{
+			final List<ScaleModifier> modifiers = new ArrayList<>(modifierCount);
+			
+			ScaleModifier modifier;
+			for (int i = 0; i < modifierCount; i++)
+			{
+				modifier = ScaleRegistries.getEntry(ScaleRegistries.SCALE_MODIFIERS, Identifier.tryParse(buffer.readString(32767)));
+				
+				if (modifier != null)
+				{
+					modifiers.add(modifier);
+				}
+			}
+			
+			packet.modifiers = modifiers;
+		}
+		
+		packet.persistent = buffer.readByte();
+		
+		if (buffer.readBoolean())
+		{
+			packet.easing = ScaleRegistries.getEntry(ScaleRegistries.SCALE_EASINGS, Identifier.tryParse(buffer.readString(32767)));
+		}
+		
+		return packet;
+	}
+	
+	/**
+	 * Reads scale data written by {@link Snapshot#write(PacketByteBuf, ScaleRegistryTable)}.
+	 * 
+	 * @param ids Registry table received from the server
+	 * @return Callback that applies the fields that were read to scale data
+	 */
+	@ApiStatus.Internal
+	public static Consumer<ScaleData> readPacket(PacketByteBuf buffer, ScaleRegistryTable ids)
+	{
+		final int fields = buffer.readVarInt();
+		final boolean quantized = (fields & SYNC_QUANTIZED) != 0;
+		
+		final PacketFields packet = new PacketFields(fields);
+		
+		if ((fields & SYNC_BASE_SCALE) != 0)
+		{
+			packet.baseScale = readScale(buffer, quantized);
+		}
+		
+		if ((fields & SYNC_PREV_SCALE) != 0)
+		{
+			packet.prevBaseScale = readScale(buffer, quantized);
+		}
+		
+		if ((fields & SYNC_INITIAL_SCALE) != 0)
+		{
+			packet.initialScale = buffer.readFloat();
+		}
+		
+		if ((fields & SYNC_TARGET_SCALE) != 0)
+		{
+			packet.targetScale = buffer.readFloat();
+		}
+		
+		if ((fields & SYNC_SCALE_TICKS) != 0)
+		{
+			packet.scaleTicks = buffer.readVarInt();
+		}
+		
+		if ((fields & SYNC_TOTAL_SCALE_TICKS) != 0)
+		{
+			packet.totalScaleTicks = buffer.readVarInt();
+		}
+		
+		if ((fields & SYNC_MODIFIERS) != 0)
+		{
+			final int modifierCount = buffer.readVarInt();
+			
+			if (modifierCount != 0)
+			{
+				final List<ScaleModifier> modifiers = new ArrayList<>(modifierCount);
+				
+				Identifier id;
+				ScaleModifier modifier;
+				for (int i = 0; i < modifierCount; i++)
+				{
+					id = ids.readModifier(buffer);
+					modifier = id == null ? null : ScaleRegistries.getEntry(ScaleRegistries.SCALE_MODIFIERS, id);
+					
+					if (modifier != null)
+					{
+						modifiers.add(modifier);
+					}
+				}
+				
+				packet.modifiers = modifiers;
+			}
+		}
+		
+		if ((fields & SYNC_PERSISTENCE) != 0)
+		{
+			packet.persistent = buffer.readByte();
+		}
+		
+		if ((fields & SYNC_EASING) != 0 && buffer.readBoolean())
+		{
+			final Identifier id = ids.readEasing(buffer);
+			
+			packet.easing = id == null ? null : ScaleRegistries.getEntry(ScaleRegistries.SCALE_EASINGS, id);
+		}
+		
+		return packet;
+	}
+	
+	/**
+	 * Scale data fields decoded from a packet, applied on the main thread.
+	 */
+	private static final class PacketFields implements Consumer<ScaleData>
+	{
+		private final int fields;
+		private float baseScale;
+		private float prevBaseScale;
+		private float initialScale;
+		private float targetScale;
+		private int scaleTicks;
+		private int totalScaleTicks;
+		private List<ScaleModifier> modifiers = Collections.emptyList();
+		private byte persistent = -1;
+		private Float2FloatFunction easing = null;
+		
+		private PacketFields(final int fields)
+		{
+			this.fields = fields;
+		}
+		
+		@Override
+		public void accept(final ScaleData scaleData)
+		{
+			final int fields = this.fields;
+			
+			if ((fields & SYNC_BASE_SCALE) != 0)
+			{
+				scaleData.baseScale = this.baseScale;
+			}
+			
+			if ((fields & SYNC_PREV_SCALE) != 0)
+			{
+				scaleData.prevBaseScale = this.prevBaseScale;
+			}
+			
+			if ((fields & SYNC_INITIAL_SCALE) != 0)
+			{
+				scaleData.initialScale = this.initialScale;
+			}
+			
+			if ((fields & SYNC_TARGET_SCALE) != 0)
+			{
+				scaleData.targetScale = this.targetScale;
+			}
+			
+			if ((fields & SYNC_SCALE_TICKS) != 0)
+			{
+				scaleData.scaleTicks = this.scaleTicks;
+			}
+			
+			if ((fields & SYNC_TOTAL_SCALE_TICKS) != 0)
+			{
+				scaleData.totalScaleTicks = this.totalScaleTicks;
+			}
+			
+			if ((fields & SYNC_PERSISTENCE) != 0)
+			{
+				scaleData.persistent = this.persistent == -1 ? null : this.persistent == 1;
+			}
+			
+			if ((fields & SYNC_EASING) != 0)
+			{
+				scaleData.easing = this.easing;
+			}
+			
+			if ((fields & SYNC_MODIFIERS) != 0)
+			{
+				scaleData.trackModifierChanges = false;
+				scaleData.setDifferingModifiers(this.modifiers);
+				scaleData.trackModifierChanges = true;
+			}
+			
+			scaleData.onUpdate();
+		}
+	}
+	
+	/**
+	 * Updates the base value modifiers to the default ones plus the given ones,
+	 * only adding and removing the modifiers that differ instead of rebuilding the set.
+	 */
+	private void setDifferingModifiers(final List<ScaleModifier> modifiers)
+	{
+		if (this.baseValueModifiers == null && modifiers.isEmpty())
+		{
+			clearModifiers();
+			return;
+		}
+		
+		final SortedSet<ScaleModifier> current = getBaseValueModifiers();
+		final Set<ScaleModifier> defaultModifiers = getScaleType().getDefaultBaseValueModifiers();
+		
+		boolean changed = false;
+		
+		List<ScaleModifier> removed = null;
+		for (final ScaleModifier modifier : current)
+		{
+			if (!defaultModifiers.contains(modifier) && !modifiers.contains(modifier))
+			{
+				if (removed == null)
+				{
+					removed = new ArrayList<>();
+				}
+				
+				removed.add(modifier);
+			}
+		}
+		
+		if (removed != null)
+		{
+			for (final ScaleModifier modifier : removed)
+			{
+				current.remove(modifier);
+			}
+			
+			changed = true;
+		}
+		
+		for (final ScaleModifier modifier : defaultModifiers)
+		{
+			changed |= current.add(modifier);
+		}
+		
+		for (final ScaleModifier modifier : modifiers)
+		{
+			changed |= current.add(modifier);
+		}
+		
+		if (changed)
+		{
+			invalidateCachedModifiers();
+		}
+	}
+	
+	/**
+	 * Smallest and largest magnitude a half precision float holds without losing more than its usual relative precision.
+	 */
+	private static final float MIN_HALF_FLOAT = 0x1P-14F;
+	private static final float MAX_HALF_FLOAT = 65504.0F;
+	
+	/**
+	 * Scales of quantized types are only sent at half precision if every scale being sent fits the normal half float range,
+	 * and never for types that affect dimensions, where client and server boxes must match.
+	 */
+	private static boolean canQuantize(ScaleType type, ScaleData scaleData, int fields)
+	{
+		if (!type.isSyncQuantized() || type.getAffectsDimensions())
+		{
+			return false;
+		}
+		
+		return ((fields & SYNC_BASE_SCALE) == 0 || fitsHalfFloat(scaleData.baseScale)) &&
+			((fields & SYNC_PREV_SCALE) == 0 || fitsHalfFloat(scaleData.prevBaseScale));
+	}
+	
+	private static boolean fitsHalfFloat(float value)
+	{
+		final float magnitude = Math.abs(value);
+		
+		return magnitude == 0.0F || (magnitude >= MIN_HALF_FLOAT && magnitude <= MAX_HALF_FLOAT);
+	}
+	
+	private static void writeScale(PacketByteBuf buffer, float scale, boolean quantized)
+	{
+		if (quantized)
+		{
+			buffer.writeShort(toHalfFloat(scale));
+		}
+		else
+		{
+			buffer.writeFloat(scale);
+		}
+	}
+	
+	private static float readScale(PacketByteBuf buffer, boolean quantized)
+	{
+		return quantized ? fromHalfFloat(buffer.readShort()) : buffer.readFloat();
+	}
+	
+	private static short toHalfFloat(float value)
+	{
+		final int bits = Float.floatToIntBits(value);
+		final int sign = (bits >>> 16) & 0x8000;
+		final int exponent = ((bits >>> 23) & 0xFF) - 112;
+		int mantissa = bits & 0x7FFFFF;
+		
+		if (exponent >= 0x1F)
+		{
+			return (short) (((bits >>> 23) & 0xFF) == 0xFF && mantissa != 0 ? sign | 0x7E00 : sign | 0x7C00);
+		}
+		
+		if (exponent <= 0)
+		{
+			if (exponent < -10)
+			{
+				return (short) sign;
+			}
+			
+			mantissa = (mantissa | 0x800000) >>> (1 - exponent);
+			
+			return (short) (sign | ((mantissa + 0x1000) >>> 13));
+		}
+		
+		return (short) ((sign | (exponent << 10) | (mantissa >>> 13)) + ((mantissa >>> 12) & 1));
+	}
+	
+	private static float fromHalfFloat(short half)
+	{
+		final int sign = (half & 0x8000) << 16;
+		int exponent = (half >>> 10) & 0x1F;
+		int mantissa = half & 0x3FF;
+		
+		if (exponent == 0x1F)
+		{
+			return Float.intBitsToFloat(sign | 0x7F800000 | (mantissa << 13));
+		}
+		
+		if (exponent == 0)
+		{
+			if (mantissa == 0)
+			{
+				return Float.intBitsToFloat(sign);
+			}
+			
+			exponent = 1;
+			
+			while ((mantissa & 0x400) == 0)
+			{
+				mantissa <<= 1;
+				exponent--;
+			}
+			
+			mantissa &= 0x3FF;
+		}
+		
+		return Float.intBitsToFloat(sign | ((exponent + 112) << 23) | (mantissa << 13));
+	}
+	
 	public void readNbt(NbtCompound tag)
 	{
 		final ScaleType type = getScaleType();
@@ -498,14 +1428,14 @@ public class ScaleData
 		
 		this.trackModifierChanges = false;
 		
-		final SortedSet<ScaleModifier> baseValueModifiers = getBaseValueModifiers();
-		
-		baseValueModifiers.clear();
-		
-		baseValueModifiers.addAll(type.getDefaultBaseValueModifiers());
-		
 		if (tag.contains("baseValueModifiers"))
 		{
+			final SortedSet<ScaleModifier> baseValueModifiers = getBaseValueModifiers();
+			
+			baseValueModifiers.clear();
+			
+			baseValueModifiers.addAll(type.getDefaultBaseValueModifiers());
+			
 			final NbtList modifiers = tag.getList("baseValueModifiers", NbtType.STRING);
 			
 			Identifier id;
@@ -540,7 +1470,7 @@ public class ScaleData
 		}
 		else
 		{
-			this.differingModifierCache.clear();
+			clearModifiers();
 		}
 		
 		this.trackModifierChanges = true;
@@ -631,12 +1561,7 @@ public class ScaleData
 		
 		this.trackModifierChanges = false;
 		
-		final SortedSet<ScaleModifier> baseValueModifiers = getBaseValueModifiers();
-		
-		baseValueModifiers.clear();
-		baseValueModifiers.addAll(type.getDefaultBaseValueModifiers());
-		
-		this.differingModifierCache.clear();
+		clearModifiers();
 		
 		this.trackModifierChanges = true;
 		
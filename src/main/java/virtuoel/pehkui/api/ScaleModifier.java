@@ -14,13 +14,40 @@ public class ScaleModifier implements Comparable<ScaleModifier>
 		this.priority = priority;
 	}
 	
+	private volatile int ordinal = -1;
+	
+	/**
+	 * Set on registration. Ordinals follow the order of registry IDs, so they can stand in for them when comparing.
+	 */
+	void setOrdinal(int ordinal)
+	{
+		this.ordinal = ordinal;
+	}
+	
 	@Override
 	public int compareTo(ScaleModifier o)
 	{
+		if (this == o)
+		{
+			return 0;
+		}
+		
 		final int c = Float.compare(o.getPriority(), getPriority());
 		
-		return c != 0 ? c :
-			ScaleRegistries.getId(ScaleRegistries.SCALE_MODIFIERS, this)
+		if (c != 0)
+		{
+			return c;
+		}
+		
+		final int ordinal = this.ordinal;
+		final int otherOrdinal = o.ordinal;
+		
+		if (ordinal != -1 && otherOrdinal != -1)
+		{
+			return Integer.compare(ordinal, otherOrdinal);
+		}
+		
+		return ScaleRegistries.getId(ScaleRegistries.SCALE_MODIFIERS, this)
 			.compareTo(
 				ScaleRegistries.getId(ScaleRegistries.SCALE_MODIFIERS, o)
 			);
@@ -1,11 +1,16 @@
 package virtuoel.pehkui.api;
 
+import java.util.ArrayList;
 import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.function.DoubleBinaryOperator;
 import java.util.function.Supplier;
 
+import org.jetbrains.annotations.ApiStatus;
+
 import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
 import com.google.common.collect.Maps;
@@ -13,6 +18,7 @@ import com.google.common.collect.Maps;
 import it.unimi.dsi.fastutil.floats.Float2FloatFunction;
 import net.minecraft.util.Identifier;
 import virtuoel.pehkui.Pehkui;
+import virtuoel.pehkui.util.ScaleRegistryTable;
 
 public class ScaleRegistries
 {
@@ -25,9 +31,58 @@ public class ScaleRegistries
 	public static final BiMap<Identifier, Float2FloatFunction> SCALE_EASINGS = create("scale_easings", "linear", () -> ScaleEasings.LINEAR);
 	public static final BiMap<Identifier, DoubleBinaryOperator> SCALE_OPERATIONS = create("scale_operations", "noop", () -> ScaleOperations.NOOP);
 	
+	private static volatile int scaleTypeCount = 0;
+	
 	public static <E> E register(Map<Identifier, E> registry, Identifier id, E entry)
 	{
-		return registry.computeIfAbsent(id, i -> entry);
+		final E registered = registry.computeIfAbsent(id, i -> entry);
+		
+		if (registered instanceof ScaleType)
+		{
+			((ScaleType) registered).getIndex();
+			
+			if (registered == entry)
+			{
+				ScaleType.invalidateDependencyGraph();
+			}
+		}
+		else if (registered == entry && registered instanceof ScaleModifier)
+		{
+			updateModifierOrdinals();
+		}
+		
+		if (registered == entry)
+		{
+			ScaleRegistryTable.invalidateServerTable();
+		}
+		
+		return registered;
+	}
+	
+	private static void updateModifierOrdinals()
+	{
+		synchronized (SCALE_MODIFIERS)
+		{
+			final List<Entry<Identifier, ScaleModifier>> entries = new ArrayList<>(SCALE_MODIFIERS.entrySet());
+			
+			entries.sort(Entry.comparingByKey());
+			
+			for (int i = 0; i < entries.size(); i++)
+			{
+				entries.get(i).getValue().setOrdinal(i);
+			}
+		}
+	}
+	
+	@ApiStatus.Internal
+	public static int getScaleTypeCount()
+	{
+		return scaleTypeCount;
+	}
+	
+	static synchronized int nextScaleTypeIndex()
+	{
+		return scaleTypeCount++;
 	}
 	
 	public static <E> E getEntry(Map<Identifier, E> registry, Identifier id)
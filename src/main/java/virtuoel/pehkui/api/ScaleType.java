@@ -1,7 +1,9 @@
 package virtuoel.pehkui.api;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.function.ToDoubleBiFunction;
 
@@ -13,6 +15,8 @@ import net.fabricmc.fabric.api.event.Event;
 import net.fabricmc.fabric.api.event.EventFactory;
 import net.minecraft.entity.Entity;
 import virtuoel.pehkui.util.BackwardsCompatibility;
+import virtuoel.pehkui.util.CompiledScaleModifiers;
+import virtuoel.pehkui.util.OversizedEntityIndex;
 import virtuoel.pehkui.util.PehkuiEntityExtensions;
 import virtuoel.pehkui.util.ScaleUtils;
 
@@ -21,16 +25,66 @@ public class ScaleType
 	/**
 	 * @see {@link ScaleType.Builder}
 	 */
+	@SuppressWarnings("serial")
 	private ScaleType(Builder builder)
 	{
 		this.defaultBaseScale = builder.defaultBaseScale;
 		this.defaultTickDelay = builder.defaultTickDelay;
-		this.defaultBaseValueModifiers = builder.defaultBaseValueModifiers;
+		this.defaultBaseValueModifiers = new ObjectRBTreeSet<ScaleModifier>(builder.defaultBaseValueModifiers)
+		{
+			@Override
+			public boolean add(ScaleModifier arg0)
+			{
+				if (super.add(arg0))
+				{
+					ScaleType.this.compiledDefaultModifiers = null;
+					invalidateDependencyGraph();
+					return true;
+				}
+				
+				return false;
+			}
+			
+			@Override
+			public boolean remove(Object arg0)
+			{
+				if (super.remove(arg0))
+				{
+					ScaleType.this.compiledDefaultModifiers = null;
+					invalidateDependencyGraph();
+					return true;
+				}
+				
+				return false;
+			}
+			
+			@Override
+			public void clear()
+			{
+				super.clear();
+				ScaleType.this.compiledDefaultModifiers = null;
+				invalidateDependencyGraph();
+			}
+		};
 		this.baseScaleClampFunction = builder.baseScaleClampFunction;
 		this.targetScaleClampFunction = builder.targetScaleClampFunction;
 		this.defaultPersistence = builder.defaultPersistence;
 		this.defaultEasing = builder.defaultEasing;
 		this.affectsDimensions = builder.affectsDimensions;
+		this.quantizedSync = builder.quantizedSync;
+		this.syncPolicy = builder.syncPolicy;
+		this.dependentModifiers = builder.dependentModifiers;
+	}
+	
+	private static volatile ScaleType[] alwaysTickedTypes = {};
+	
+	/**
+	 * @return Scale types whose data is ticked for every entity, every tick
+	 */
+	@ApiStatus.Internal
+	public static ScaleType[] getAlwaysTickedTypes()
+	{
+		return alwaysTickedTypes;
 	}
 	
 	public ScaleData getScaleData(Entity entity)
@@ -38,6 +92,35 @@ public class ScaleType
 		return ((PehkuiEntityExtensions) entity).pehkui_getScaleData(this);
 	}
 	
+	private volatile int index = -1;
+	
+	/**
+	 * Gets the stable, dense index of this scale type, used to address per-entity scale data storage.
+	 * Registered types are assigned one on registration. Unregistered types are assigned one on first use.
+	 * 
+	 * @return Index of this scale type
+	 */
+	@ApiStatus.Internal
+	public int getIndex()
+	{
+		int index = this.index;
+		
+		if (index == -1)
+		{
+			synchronized (this)
+			{
+				index = this.index;
+				
+				if (index == -1)
+				{
+					this.index = index = ScaleRegistries.nextScaleTypeIndex();
+				}
+			}
+		}
+		
+		return index;
+	}
+	
 	private boolean affectsDimensions;
 	
 	@ApiStatus.Internal
@@ -46,6 +129,96 @@ public class ScaleType
 		return affectsDimensions;
 	}
 	
+	private final boolean quantizedSync;
+	
+	/**
+	 * @return Whether base and previous scale of this type may be sent to clients as half precision floats
+	 */
+	public boolean isSyncQuantized()
+	{
+		return quantizedSync;
+	}
+	
+	private final SyncPolicy syncPolicy;
+	
+	public SyncPolicy getSyncPolicy()
+	{
+		return syncPolicy;
+	}
+	
+	/**
+	 * Which clients scale data of a type is synced to.
+	 */
+	public static enum SyncPolicy
+	{
+		/**
+		 * Not synced, for types only used by server side logic.
+		 */
+		NONE,
+		/**
+		 * Only synced to the player the scale data belongs to, for types only used by the client of that player.
+		 * Not suitable for types read for the camera entity, since spectators can view through other players.
+		 */
+		OWNER_ONLY,
+		/**
+		 * Synced to the player the scale data belongs to and every client tracking the entity.
+		 */
+		ALL_TRACKERS,
+		/**
+		 * Only the base value modifiers are synced, to every client tracking the entity.
+		 * For types whose value is derived from other synced types through their modifiers, and whose own scale is left at its default.
+		 */
+		DERIVED_ONLY;
+		
+		public boolean syncsToOwner()
+		{
+			return this != NONE;
+		}
+		
+		public boolean syncsToTrackers()
+		{
+			return this == ALL_TRACKERS || this == DERIVED_ONLY;
+		}
+	}
+	
+	private boolean alwaysTicked = false;
+	
+	/**
+	 * By default, scale data is only ticked while it is transitioning or while its type has pre or post tick listeners registered,
+	 * so data that has not been created for an entity does not fire those events.
+	 * Listeners that need to be invoked for every entity on every tick should enable this on their scale type.
+	 * 
+	 * @param alwaysTicked Whether scale data of this type should be ticked for every entity, every tick
+	 */
+	public void setAlwaysTicked(boolean alwaysTicked)
+	{
+		synchronized (ScaleType.class)
+		{
+			if (this.alwaysTicked != alwaysTicked)
+			{
+				this.alwaysTicked = alwaysTicked;
+				
+				final List<ScaleType> types = new ArrayList<>(Arrays.asList(alwaysTickedTypes));
+				
+				if (alwaysTicked)
+				{
+					types.add(this);
+				}
+				else
+				{
+					types.remove(this);
+				}
+				
+				alwaysTickedTypes = types.toArray(new ScaleType[0]);
+			}
+		}
+	}
+	
+	public boolean isAlwaysTicked()
+	{
+		return alwaysTicked;
+	}
+	
 	private boolean defaultPersistence;
 	
 	public void setDefaultPersistence(boolean persistent)
@@ -57,19 +230,19 @@ public class ScaleType
 	{
 		return defaultPersistence;
 	}
-
+	
 	private Float2FloatFunction defaultEasing;
-
+	
 	public void setDefaultEasing(Float2FloatFunction defaultEasing)
 	{
 		this.defaultEasing = defaultEasing;
 	}
-
+	
 	public Float2FloatFunction getDefaultEasing()
 	{
 		return defaultEasing;
 	}
-
+	
 	private float defaultBaseScale;
 	
 	public final float getDefaultBaseScale()
@@ -109,6 +282,85 @@ public class ScaleType
 		return defaultBaseValueModifiers;
 	}
 	
+	private final Set<ScaleModifier> dependentModifiers;
+	
+	/**
+	 * Checks if any of the given modifiers read the scale of this type, either because they were declared
+	 * as dependent modifiers of this type or because they are typed modifiers targeting it.
+	 */
+	@ApiStatus.Internal
+	public boolean isDependencyOf(Collection<ScaleModifier> modifiers)
+	{
+		for (final ScaleModifier modifier : modifiers)
+		{
+			if (dependentModifiers.contains(modifier) || (modifier instanceof TypedScaleModifier && ((TypedScaleModifier) modifier).getType() == this))
+			{
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	private volatile ScaleType[] dependentTypes = null;
+	
+	/**
+	 * Gets the registered scale types whose default modifiers read the scale of this type.
+	 * Computed on first use and recomputed after scale types or default modifiers change.
+	 */
+	@ApiStatus.Internal
+	public ScaleType[] getDependentTypes()
+	{
+		ScaleType[] dependents = this.dependentTypes;
+		
+		if (dependents == null)
+		{
+			final List<ScaleType> types = new ArrayList<>();
+			
+			synchronized (ScaleRegistries.SCALE_TYPES)
+			{
+				for (final ScaleType type : ScaleRegistries.SCALE_TYPES.values())
+				{
+					if (type != this && isDependencyOf(type.getDefaultBaseValueModifiers()))
+					{
+						types.add(type);
+					}
+				}
+			}
+			
+			this.dependentTypes = dependents = types.toArray(new ScaleType[0]);
+		}
+		
+		return dependents;
+	}
+	
+	@ApiStatus.Internal
+	public static void invalidateDependencyGraph()
+	{
+		synchronized (ScaleRegistries.SCALE_TYPES)
+		{
+			for (final ScaleType type : ScaleRegistries.SCALE_TYPES.values())
+			{
+				type.dependentTypes = null;
+			}
+		}
+	}
+	
+	private volatile CompiledScaleModifiers compiledDefaultModifiers = null;
+	
+	@ApiStatus.Internal
+	public CompiledScaleModifiers getCompiledDefaultModifiers()
+	{
+		CompiledScaleModifiers compiled = compiledDefaultModifiers;
+		
+		if (compiled == null)
+		{
+			compiledDefaultModifiers = compiled = CompiledScaleModifiers.compile(getDefaultBaseValueModifiers());
+		}
+		
+		return compiled;
+	}
+	
 	public static class Builder
 	{
 		private Set<ScaleModifier> defaultBaseValueModifiers = new ObjectRBTreeSet<>();
@@ -154,6 +406,9 @@ public class ScaleType
 		private Set<ScaleModifier> dependentModifiers = new ObjectRBTreeSet<>();
 		private boolean defaultPersistence = false;
 		private Float2FloatFunction defaultEasing = ScaleEasings.LINEAR;
+		private boolean alwaysTicked = false;
+		private boolean quantizedSync = false;
+		private SyncPolicy syncPolicy = SyncPolicy.ALL_TRACKERS;
 		
 		public static Builder create()
 		{
@@ -212,19 +467,47 @@ public class ScaleType
 			this.defaultPersistence = defaultPersistence;
 			return this;
 		}
-
+		
 		public Builder defaultEasing(Float2FloatFunction defaultEasing)
 		{
 			this.defaultEasing = defaultEasing;
 			return this;
 		}
 		
+		public Builder alwaysTicked()
+		{
+			this.alwaysTicked = true;
+			return this;
+		}
+		
 		public Builder affectsDimensions()
 		{
 			this.affectsDimensions = true;
 			return this;
 		}
 		
+		/**
+		 * Syncs base and previous scale at half precision to save bandwidth.
+		 * Initial and target scale are always synced at full precision, so transitions still end on the exact value.
+		 * <p>Half precision keeps about three significant digits, a relative error of up to 0.05%,
+		 * for magnitudes from 2^-14 to 65504. Scales outside that range are sent at full precision.
+		 * Ignored for types that {@link #affectsDimensions() affect dimensions}, so client and server bounding boxes match.
+		 */
+		public Builder quantizedSync()
+		{
+			this.quantizedSync = true;
+			return this;
+		}
+		
+		/**
+		 * Defaults to {@link SyncPolicy#ALL_TRACKERS}.
+		 */
+		public Builder syncPolicy(SyncPolicy syncPolicy)
+		{
+			this.syncPolicy = syncPolicy;
+			return this;
+		}
+		
 		public Builder addDependentModifier(ScaleModifier scaleModifier)
 		{
 			this.dependentModifiers.add(scaleModifier);
@@ -235,16 +518,19 @@ public class ScaleType
 		{
 			final ScaleType type = new ScaleType(this);
 			
-			if (this.affectsDimensions)
+			if (this.alwaysTicked)
 			{
-				type.getScaleChangedEvent().register(Builder::calculateDimensions);
+				type.setAlwaysTicked(true);
 			}
 			
-			if (!this.dependentModifiers.isEmpty())
+			if (this.affectsDimensions)
 			{
-				type.getScaleChangedEvent().register(createModifiedDataSyncEvent(this.dependentModifiers));
+				type.getScaleChangedEvent().register(Builder::calculateDimensions);
 			}
 			
+			type.getScaleChangedEvent().register(Builder::markDependentsForSync);
+			type.getScaleChangedEvent().register(Builder::updateOversizedEntityIndex);
+			
 			return type;
 		}
 		
@@ -255,6 +541,12 @@ public class ScaleType
 			if (e != null)
 			{
 				final PehkuiEntityExtensions en = (PehkuiEntityExtensions) e;
+				
+				if (en.pehkui_deferDimensionUpdate())
+				{
+					return;
+				}
+				
 				final boolean onGround = en.pehkui_getOnGround();
 				
 				e.calculateDimensions();
@@ -263,26 +555,44 @@ public class ScaleType
 			}
 		}
 		
-		private static ScaleEventCallback createModifiedDataSyncEvent(final Collection<ScaleModifier> modifiers)
+		private static void updateOversizedEntityIndex(ScaleData s)
 		{
-			return s ->
+			final Entity e = s.getEntity();
+			
+			if (e != null)
 			{
-				final Entity e = s.getEntity();
+				OversizedEntityIndex.update(e);
+			}
+		}
+		
+		private static void markDependentsForSync(ScaleData s)
+		{
+			final Entity e = s.getEntity();
+			
+			if (e != null && !s.isSimulatingTick())
+			{
+				final ScaleType type = s.getScaleType();
+				final ScaleData[] scales = ((PehkuiEntityExtensions) e).pehkui_getScaleDataArray();
+				
+				int index;
+				for (final ScaleType dependent : type.getDependentTypes())
+				{
+					index = dependent.getIndex();
+					
+					if (index < scales.length && scales[index] != null)
+					{
+						scales[index].markForSync(true);
+					}
+				}
 				
-				if (e != null)
+				for (final ScaleData data : scales)
 				{
-					ScaleData data;
-					for (ScaleType scaleType : ScaleRegistries.SCALE_TYPES.values())
+					if (data != null && data.hasDifferingModifiers() && type.isDependencyOf(data.getEffectiveModifiers()))
 					{
-						data = scaleType.getScaleData(e);
-						
-						if (!Collections.disjoint(modifiers, data.getBaseValueModifiers()))
-						{
-							data.markForSync(true);
-						}
+						data.markForSync(true);
 					}
 				}
-			};
+			}
 		}
 	}
 	
@@ -307,11 +617,22 @@ public class ScaleType
 		return postTickEvent;
 	}
 	
+	/**
+	 * @return Whether any pre or post tick listeners are registered for this type
+	 */
+	@ApiStatus.Internal
+	public boolean hasTickListeners()
+	{
+		return preTickEvent.invoker() != NO_LISTENERS || postTickEvent.invoker() != NO_LISTENERS;
+	}
+	
+	private static final ScaleEventCallback NO_LISTENERS = data -> {};
+	
 	private static Event<ScaleEventCallback> createScaleEvent()
 	{
 		return EventFactory.createArrayBacked(
 			ScaleEventCallback.class,
-			data -> {},
+			NO_LISTENERS,
 			(callbacks) -> (data) ->
 			{
 				for (ScaleEventCallback callback : callbacks)
@@ -2,6 +2,7 @@ package virtuoel.pehkui.api;
 
 import net.minecraft.util.Identifier;
 import virtuoel.pehkui.Pehkui;
+import virtuoel.pehkui.api.ScaleType.SyncPolicy;
 
 public class ScaleTypes
 {
@@ -23,20 +24,20 @@ public class ScaleTypes
 	public static final ScaleType VIEW_BOBBING = register("view_bobbing", ScaleModifiers.MOTION_MULTIPLIER);
 	public static final ScaleType VISIBILITY = register("visibility", ScaleModifiers.BASE_MULTIPLIER);
 	public static final ScaleType JUMP_HEIGHT = register("jump_height");
-	public static final ScaleType FLIGHT = register("flight");
-	public static final ScaleType REACH = register("reach", ScaleModifiers.BASE_MULTIPLIER);
-	public static final ScaleType BLOCK_REACH = register("block_reach", ScaleModifiers.REACH_MULTIPLIER);
-	public static final ScaleType ENTITY_REACH = register("entity_reach", ScaleModifiers.REACH_MULTIPLIER);
-	public static final ScaleType MINING_SPEED = register("mining_speed");
-	public static final ScaleType ATTACK_SPEED = register("attack_speed");
-	public static final ScaleType KNOCKBACK = register("knockback");
-	public static final ScaleType ATTACK = register("attack");
-	public static final ScaleType DEFENSE = register("defense");
+	public static final ScaleType FLIGHT = register("flight", SyncPolicy.OWNER_ONLY);
+	public static final ScaleType REACH = register("reach", SyncPolicy.OWNER_ONLY, ScaleModifiers.BASE_MULTIPLIER);
+	public static final ScaleType BLOCK_REACH = register("block_reach", SyncPolicy.OWNER_ONLY, ScaleModifiers.REACH_MULTIPLIER);
+	public static final ScaleType ENTITY_REACH = register("entity_reach", SyncPolicy.OWNER_ONLY, ScaleModifiers.REACH_MULTIPLIER);
+	public static final ScaleType MINING_SPEED = register("mining_speed", SyncPolicy.OWNER_ONLY);
+	public static final ScaleType ATTACK_SPEED = register("attack_speed", SyncPolicy.OWNER_ONLY);
+	public static final ScaleType KNOCKBACK = register("knockback", SyncPolicy.NONE);
+	public static final ScaleType ATTACK = register("attack", SyncPolicy.NONE);
+	public static final ScaleType DEFENSE = register("defense", SyncPolicy.NONE);
 	public static final ScaleType HEALTH = register("health");
-	public static final ScaleType DROPS = register("drops", ScaleModifiers.BASE_MULTIPLIER);
+	public static final ScaleType DROPS = register("drops", SyncPolicy.NONE, ScaleModifiers.BASE_MULTIPLIER);
 	public static final ScaleType HELD_ITEM = register("held_item");
 	public static final ScaleType PROJECTILES = register("projectiles", ScaleModifiers.BASE_MULTIPLIER);
-	public static final ScaleType EXPLOSIONS = register("explosions", ScaleModifiers.BASE_MULTIPLIER);
+	public static final ScaleType EXPLOSIONS = register("explosions", SyncPolicy.NONE, ScaleModifiers.BASE_MULTIPLIER);
 	
 	private static ScaleType register(Identifier id, ScaleType.Builder builder)
 	{
@@ -59,9 +60,20 @@ public class ScaleTypes
 		return register(Pehkui.id(path));
 	}
 	
+	private static ScaleType register(String path, SyncPolicy syncPolicy)
+	{
+		return register(Pehkui.id(path), ScaleType.Builder.create().syncPolicy(syncPolicy));
+	}
+	
 	private static ScaleType register(String path, ScaleModifier valueModifier, ScaleModifier... dependantModifiers)
 	{
-		final ScaleType.Builder builder = ScaleType.Builder.create();
+		return register(path, SyncPolicy.ALL_TRACKERS, valueModifier, dependantModifiers);
+	}
+	
+	private static ScaleType register(String path, SyncPolicy syncPolicy, ScaleModifier valueModifier, ScaleModifier... dependantModifiers)
+	{
+		final ScaleType.Builder builder = ScaleType.Builder.create()
+			.syncPolicy(syncPolicy);
 		
 		if (valueModifier != null)
 		{
@@ -23,12 +23,12 @@ public class TypedScaleModifier extends ScaleModifier
 	
 	public TypedScaleModifier(final Supplier<ScaleType> type)
 	{
-		this(type, (modified, typed) -> modified * typed);
+		this(type, ScaleOperations.MULTIPLY);
 	}
 	
 	public TypedScaleModifier(final Supplier<ScaleType> type, final float priority)
 	{
-		this(type, (modified, typed) -> modified * typed, priority);
+		this(type, ScaleOperations.MULTIPLY, priority);
 	}
 	
 	public ScaleType getType()
@@ -36,6 +36,11 @@ public class TypedScaleModifier extends ScaleModifier
 		return type.get();
 	}
 	
+	public DoubleBinaryOperator getOperation()
+	{
+		return operation;
+	}
+	
 	@Override
 	public float modifyScale(final ScaleData scaleData, float modifiedScale, final float delta)
 	{
@@ -1,10 +1,12 @@
 package virtuoel.pehkui.mixin;
 
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Map.Entry;
 
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Constant;
 import org.spongepowered.asm.mixin.injection.Inject;
@@ -16,8 +18,6 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 import org.spongepowered.asm.mixin.injection.invoke.arg.Args;
 
-import it.unimi.dsi.fastutil.objects.Object2ObjectMaps;
-import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 import net.fabricmc.fabric.api.util.NbtType;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityDimensions;
@@ -27,14 +27,17 @@ import net.minecraft.entity.MovementType;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.util.Identifier;
+import net.minecraft.util.math.Box;
 import net.minecraft.util.math.Vec3d;
 import virtuoel.pehkui.Pehkui;
 import virtuoel.pehkui.api.ScaleData;
 import virtuoel.pehkui.api.ScaleRegistries;
 import virtuoel.pehkui.api.ScaleType;
 import virtuoel.pehkui.server.command.DebugCommand;
+import virtuoel.pehkui.util.ConfigSyncUtils;
 import virtuoel.pehkui.util.PehkuiEntityExtensions;
-import virtuoel.pehkui.util.ScaleCachingUtils;
+import virtuoel.pehkui.util.ScaleDataMap;
+import virtuoel.pehkui.util.ScaleSyncQueue;
 import virtuoel.pehkui.util.ScaleUtils;
 
 @Mixin(Entity.class)
@@ -43,10 +46,27 @@ public abstract class EntityMixin implements PehkuiEntityExtensions
 	@Shadow boolean onGround;
 	@Shadow boolean firstUpdate;
 	
-	private volatile Map<ScaleType, ScaleData> pehkui_scaleTypes = Object2ObjectMaps.synchronize(new Object2ObjectOpenHashMap<>());
+	@Unique
+	private static final ScaleData[] pehkui$EMPTY = {};
+	
+	private volatile ScaleData[] pehkui_scaleData = pehkui$EMPTY;
+	private ScaleType pehkui_constructingScaleType = null;
+	private ScaleData[] pehkui_tickingScaleData = pehkui$EMPTY;
+	private int pehkui_tickingScaleDataCount = 0;
+	private int pehkui_scaleCacheVersion = 0;
+	private boolean pehkui_hasVolatileScaleModifiers = false;
+	private boolean pehkui_trackedByWorld = false;
+	private int pehkui_scaleBatchDepth = 0;
+	private ScaleData[] pehkui_pendingScaleUpdates = pehkui$EMPTY;
+	private int pehkui_pendingScaleUpdateCount = 0;
+	private int pehkui_flushedScaleUpdateCount = 0;
+	private boolean pehkui_pendingDimensionUpdate = false;
 	private boolean pehkui_shouldSyncScales = false;
 	private boolean pehkui_shouldIgnoreScaleNbt = false;
-	private ScaleData[] pehkui_scaleCache = null;
+	private Map<ScaleType, ScaleData> pehkui_scales = null;
+	private Box pehkui_interactionBox = null;
+	private Box pehkui_interactionBoxSource = null;
+	private int pehkui_interactionBoxVersion = 0;
 	
 	@Override
 	public ScaleData pehkui_constructScaleData(ScaleType type)
@@ -57,80 +77,75 @@ public abstract class EntityMixin implements PehkuiEntityExtensions
 	@Override
 	public ScaleData pehkui_getScaleData(ScaleType type)
 	{
-		if (ScaleCachingUtils.ENABLE_CACHING)
+		final int index = type.getIndex();
+		final ScaleData[] scaleData = pehkui_scaleData;
+		
+		if (index < scaleData.length)
 		{
-			ScaleData[] scaleCache = pehkui_scaleCache;
+			final ScaleData data = scaleData[index];
 			
-			if (scaleCache == null)
+			if (data != null)
 			{
-				synchronized (this)
-				{
-					scaleCache = pehkui_scaleCache;
-					
-					if (scaleCache == null)
-					{
-						pehkui_scaleCache = scaleCache = new ScaleData[ScaleCachingUtils.CACHED.length];
-					}
-				}
+				return data;
+			}
+		}
+		
+		synchronized (this)
+		{
+			ScaleData[] current = pehkui_scaleData;
+			
+			if (index < current.length && current[index] != null)
+			{
+				return current[index];
 			}
 			
-			final ScaleData cached = ScaleCachingUtils.getCachedData(scaleCache, type);
+			final ScaleType constructing = pehkui_constructingScaleType;
 			
-			if (cached != null)
+			if (constructing == type)
 			{
-				return cached;
+				return null;
 			}
-		}
-		
-		final Map<ScaleType, ScaleData> scaleTypes = pehkui_getScales();
-		
-		ScaleData scaleData = scaleTypes.get(type);
-		
-		if (scaleData == null)
-		{
-			synchronized (scaleTypes)
+			
+			final ScaleData data;
+			
+			pehkui_constructingScaleType = type;
+			
+			try
 			{
-				if (!scaleTypes.containsKey(type))
-				{
-					scaleTypes.put(type, null);
-					scaleTypes.put(type, scaleData = pehkui_constructScaleData(type));
-					
-					if (ScaleCachingUtils.ENABLE_CACHING)
-					{
-						ScaleCachingUtils.setCachedData(pehkui_scaleCache, type, scaleData);
-					}
-				}
-				else
-				{
-					scaleData = scaleTypes.get(type);
-				}
+				data = pehkui_constructScaleData(type);
+			}
+			finally
+			{
+				pehkui_constructingScaleType = constructing;
 			}
+			
+			current = pehkui_scaleData;
+			
+			final ScaleData[] updated = Arrays.copyOf(current, Math.max(index + 1, Math.max(current.length, ScaleRegistries.getScaleTypeCount())));
+			updated[index] = data;
+			pehkui_scaleData = updated;
+			
+			return data;
 		}
-		
-		return scaleData;
+	}
+	
+	@Override
+	public ScaleData[] pehkui_getScaleDataArray()
+	{
+		return pehkui_scaleData;
 	}
 	
 	@Override
 	public Map<ScaleType, ScaleData> pehkui_getScales()
 	{
-		Map<ScaleType, ScaleData> scaleTypes = pehkui_scaleTypes;
+		Map<ScaleType, ScaleData> scales = pehkui_scales;
 		
-		if (scaleTypes == null)
+		if (scales == null)
 		{
-			synchronized (this)
-			{
-				scaleTypes = pehkui_scaleTypes;
-				
-				if (scaleTypes == null)
-				{
-					pehkui_scaleTypes = scaleTypes = Object2ObjectMaps.synchronize(new Object2ObjectOpenHashMap<>());
-					
-					ScaleRegistries.SCALE_TYPES.values().forEach(this::pehkui_getScaleData);
-				}
-			}
+			pehkui_scales = scales = new ScaleDataMap(this);
 		}
 		
-		return scaleTypes;
+		return scales;
 	}
 	
 	@Override
@@ -207,7 +222,7 @@ public abstract class EntityMixin implements PehkuiEntityExtensions
 		final NbtCompound typeData = new NbtCompound();
 		
 		NbtCompound compound;
-		for (final ScaleData scaleData : pehkui_getScales().values())
+		for (final ScaleData scaleData : pehkui_getScaleDataArray())
 		{
 			if (scaleData != null)
 			{
@@ -231,10 +246,271 @@ public abstract class EntityMixin implements PehkuiEntityExtensions
 	@Inject(at = @At("HEAD"), method = "tick")
 	private void pehkui$tick(CallbackInfo info)
 	{
-		for (ScaleType type : ScaleRegistries.SCALE_TYPES.values())
+		pehkui_tickScales();
+	}
+	
+	@Override
+	public void pehkui_scheduleScaleTick(ScaleData data)
+	{
+		ScaleData[] ticking = pehkui_tickingScaleData;
+		final int count = pehkui_tickingScaleDataCount;
+		
+		for (int i = 0; i < count; i++)
+		{
+			if (ticking[i] == data)
+			{
+				return;
+			}
+		}
+		
+		if (count == ticking.length)
+		{
+			pehkui_tickingScaleData = ticking = Arrays.copyOf(ticking, Math.max(4, count * 2));
+		}
+		
+		ticking[count] = data;
+		pehkui_tickingScaleDataCount = count + 1;
+	}
+	
+	@Override
+	public void pehkui_tickScales()
+	{
+		if (pehkui_hasVolatileScaleModifiers)
+		{
+			pehkui_invalidateScaleCaches();
+		}
+		
+		for (final ScaleType type : ScaleType.getAlwaysTickedTypes())
 		{
 			ScaleUtils.tickScale(pehkui_getScaleData(type));
 		}
+		
+		final int count = pehkui_tickingScaleDataCount;
+		
+		ScaleType type;
+		for (final ScaleData data : pehkui_scaleData)
+		{
+			if (data != null)
+			{
+				type = data.getScaleType();
+				
+				if (!type.isAlwaysTicked() && type.hasTickListeners() && !pehkui$isScheduled(data, count))
+				{
+					ScaleUtils.tickScale(data);
+				}
+			}
+		}
+		
+		if (count == 0)
+		{
+			return;
+		}
+		
+		ScaleData data;
+		for (int i = 0; i < count; i++)
+		{
+			data = pehkui_tickingScaleData[i];
+			
+			if (!data.getScaleType().isAlwaysTicked())
+			{
+				ScaleUtils.tickScale(data);
+			}
+		}
+		
+		final ScaleData[] ticking = pehkui_tickingScaleData;
+		final int total = pehkui_tickingScaleDataCount;
+		
+		int kept = 0;
+		for (int i = 0; i < total; i++)
+		{
+			data = ticking[i];
+			
+			if (data.shouldTick())
+			{
+				ticking[kept++] = data;
+			}
+		}
+		
+		Arrays.fill(ticking, kept, total, null);
+		pehkui_tickingScaleDataCount = kept;
+	}
+	
+	@Unique
+	private boolean pehkui$isScheduled(final ScaleData data, final int count)
+	{
+		final ScaleData[] ticking = pehkui_tickingScaleData;
+		
+		for (int i = 0; i < count; i++)
+		{
+			if (ticking[i] == data)
+			{
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	@Override
+	public int pehkui_getScaleCacheVersion()
+	{
+		return pehkui_scaleCacheVersion + ConfigSyncUtils.getConfigVersion();
+	}
+	
+	@Override
+	public void pehkui_invalidateScaleCaches()
+	{
+		pehkui_scaleCacheVersion++;
+	}
+	
+	@Override
+	public Box pehkui_getInteractionBox()
+	{
+		final Box bounds = ((Entity) (Object) this).getBoundingBox();
+		final int version = pehkui_getScaleCacheVersion();
+		
+		if (bounds == pehkui_interactionBoxSource && version == pehkui_interactionBoxVersion)
+		{
+			return pehkui_interactionBox;
+		}
+		
+		Box interactionBox = bounds;
+		
+		final float interactionWidth = ScaleUtils.getInteractionBoxWidthScale((Entity) (Object) this);
+		final float interactionHeight = ScaleUtils.getInteractionBoxHeightScale((Entity) (Object) this);
+		
+		if (interactionWidth != 1.0F || interactionHeight != 1.0F)
+		{
+			final double scaledXLength = bounds.getXLength() * 0.5D * (interactionWidth - 1.0F);
+			final double scaledYLength = bounds.getYLength() * 0.5D * (interactionHeight - 1.0F);
+			final double scaledZLength = bounds.getZLength() * 0.5D * (interactionWidth - 1.0F);
+			
+			interactionBox = bounds.expand(scaledXLength, scaledYLength, scaledZLength);
+		}
+		
+		pehkui_interactionBox = interactionBox;
+		pehkui_interactionBoxSource = bounds;
+		pehkui_interactionBoxVersion = version;
+		
+		return interactionBox;
+	}
+	
+	@Override
+	public void pehkui_markVolatileScaleModifiers()
+	{
+		pehkui_hasVolatileScaleModifiers = true;
+	}
+	
+	@Override
+	public boolean pehkui_isTrackedByWorld()
+	{
+		return pehkui_trackedByWorld;
+	}
+	
+	@Override
+	public void pehkui_setTrackedByWorld(boolean tracked)
+	{
+		pehkui_trackedByWorld = tracked;
+	}
+	
+	@Override
+	public void pehkui_beginScaleBatch()
+	{
+		pehkui_scaleBatchDepth++;
+	}
+	
+	@Override
+	public void pehkui_endScaleBatch()
+	{
+		if (pehkui_scaleBatchDepth > 1)
+		{
+			pehkui_scaleBatchDepth--;
+			return;
+		}
+		
+		try
+		{
+			ScaleData data;
+			while (pehkui_flushedScaleUpdateCount < pehkui_pendingScaleUpdateCount)
+			{
+				data = pehkui_pendingScaleUpdates[pehkui_flushedScaleUpdateCount];
+				pehkui_pendingScaleUpdates[pehkui_flushedScaleUpdateCount++] = null;
+				data.notifyUpdate();
+			}
+		}
+		finally
+		{
+			Arrays.fill(pehkui_pendingScaleUpdates, pehkui_flushedScaleUpdateCount, pehkui_pendingScaleUpdateCount, null);
+			pehkui_pendingScaleUpdateCount = 0;
+			pehkui_flushedScaleUpdateCount = 0;
+			pehkui_scaleBatchDepth = 0;
+		}
+		
+		if (pehkui_pendingDimensionUpdate)
+		{
+			pehkui_pendingDimensionUpdate = false;
+			
+			final boolean onGround = pehkui_getOnGround();
+			
+			((Entity) (Object) this).calculateDimensions();
+			
+			pehkui_setOnGround(onGround);
+		}
+	}
+	
+	@Override
+	public boolean pehkui_deferScaleUpdate(ScaleData data)
+	{
+		if (pehkui_scaleBatchDepth == 0)
+		{
+			return false;
+		}
+		
+		ScaleData[] pending = pehkui_pendingScaleUpdates;
+		final int count = pehkui_pendingScaleUpdateCount;
+		
+		for (int i = pehkui_flushedScaleUpdateCount; i < count; i++)
+		{
+			if (pending[i] == data)
+			{
+				return true;
+			}
+		}
+		
+		if (count == pending.length)
+		{
+			pehkui_pendingScaleUpdates = pending = Arrays.copyOf(pending, Math.max(4, count * 2));
+		}
+		
+		pending[count] = data;
+		pehkui_pendingScaleUpdateCount = count + 1;
+		
+		return true;
+	}
+	
+	@Override
+	public boolean pehkui_deferDimensionUpdate()
+	{
+		if (pehkui_scaleBatchDepth == 0)
+		{
+			return false;
+		}
+		
+		pehkui_pendingDimensionUpdate = true;
+		
+		return true;
+	}
+	
+	@Inject(at = @At("HEAD"), method = "setPose")
+	private void pehkui$setPose(EntityPose pose, CallbackInfo info)
+	{
+		pehkui_invalidateScaleCaches();
+	}
+	
+	@Inject(at = @At("HEAD"), method = "calculateDimensions")
+	private void pehkui$calculateDimensions(CallbackInfo info)
+	{
+		pehkui_invalidateScaleCaches();
 	}
 	
 	@Inject(at = @At("RETURN"), method = "getDimensions", cancellable = true)
@@ -252,7 +528,13 @@ public abstract class EntityMixin implements PehkuiEntityExtensions
 	@Inject(at = @At("HEAD"), method = "onStartedTrackingBy")
 	private void pehkui$onStartedTrackingBy(ServerPlayerEntity player, CallbackInfo info)
 	{
-		ScaleUtils.syncScalesOnTrackingStart((Entity) (Object) this, player.networkHandler::sendPacket);
+		ScaleUtils.syncScalesOnTrackingStart((Entity) (Object) this, player);
+	}
+	
+	@Inject(at = @At("HEAD"), method = "onStoppedTrackingBy")
+	private void pehkui$onStoppedTrackingBy(ServerPlayerEntity player, CallbackInfo info)
+	{
+		ScaleSyncQueue.onStoppedTracking((Entity) (Object) this, player.networkHandler);
 	}
 	
 	@ModifyVariable(method = "dropStack(Lnet/minecraft/item/ItemStack;F)Lnet/minecraft/entity/ItemEntity;", at = @At(value = "STORE"))
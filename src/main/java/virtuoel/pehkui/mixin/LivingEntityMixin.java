@@ -14,7 +14,6 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 import org.spongepowered.asm.mixin.injection.callback.LocalCapture;
 
-import net.minecraft.block.ScaffoldingBlock;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityDimensions;
 import net.minecraft.entity.EntityPose;
@@ -26,7 +25,8 @@ import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.math.Vec3d;
 import virtuoel.pehkui.api.PehkuiConfig;
 import virtuoel.pehkui.util.MulticonnectCompatibility;
-import virtuoel.pehkui.util.PehkuiBlockStateExtensions;
+import virtuoel.pehkui.util.PehkuiEntityExtensions;
+import virtuoel.pehkui.util.ScaffoldingLookup;
 import virtuoel.pehkui.util.ScaleUtils;
 
 @Mixin(LivingEntity.class)
@@ -150,6 +150,14 @@ public abstract class LivingEntityMixin
 		}
 	}
 	
+	/**
+	 * Scaffolding found under the footprint of this entity, reused while its footprint stays the same within a tick.
+	 */
+	private int pehkui_scaffoldingCheckAge = -1;
+	private long pehkui_scaffoldingCheckMin = 0L;
+	private long pehkui_scaffoldingCheckMax = 0L;
+	private boolean pehkui_scaffoldingCheckResult = false;
+	
 	@Inject(method = "applyClimbingSpeed(Lnet/minecraft/util/math/Vec3d;)Lnet/minecraft/util/math/Vec3d;", at = @At(value = "RETURN"), cancellable = true)
 	private void pehkui$applyClimbingSpeed(Vec3d motion, CallbackInfoReturnable<Vec3d> info)
 	{
@@ -176,14 +184,21 @@ public abstract class LivingEntityMixin
 			final int minZ = MathHelper.floor(bounds.minZ + halfUnscaledZLength);
 			final int maxZ = MathHelper.floor(bounds.maxZ - halfUnscaledZLength);
 			
-			for (final BlockPos pos : BlockPos.iterate(minX, minY, minZ, maxX, minY, maxZ))
+			final long min = BlockPos.asLong(minX, minY, minZ);
+			final long max = BlockPos.asLong(maxX, minY, maxZ);
+			
+			if (pehkui_scaffoldingCheckAge != self.age || pehkui_scaffoldingCheckMin != min || pehkui_scaffoldingCheckMax != max)
+			{
+				pehkui_scaffoldingCheckAge = self.age;
+				pehkui_scaffoldingCheckMin = min;
+				pehkui_scaffoldingCheckMax = max;
+				pehkui_scaffoldingCheckResult = ScaffoldingLookup.containsScaffolding(self.getEntityWorld(), minX, minY, minZ, maxX, maxZ);
+			}
+			
+			if (pehkui_scaffoldingCheckResult)
 			{
-				if (((PehkuiBlockStateExtensions) self.getEntityWorld().getBlockState(pos)).pehkui_getBlock() instanceof ScaffoldingBlock)
-				{
-					final Vec3d prev = info.getReturnValue();
-					info.setReturnValue(new Vec3d(prev.x, Math.max(self.getVelocity().y, -0.15D), prev.z));
-					break;
-				}
+				final Vec3d prev = info.getReturnValue();
+				info.setReturnValue(new Vec3d(prev.x, Math.max(self.getVelocity().y, -0.15D), prev.z));
 			}
 		}
 	}
@@ -191,20 +206,6 @@ public abstract class LivingEntityMixin
 	@Redirect(method = "tickCramming", at = @At(value = "INVOKE", target = "Lnet/minecraft/entity/LivingEntity;getBoundingBox()Lnet/minecraft/util/math/Box;"))
 	private Box pehkui$tickCramming$getBoundingBox(LivingEntity obj)
 	{
-		final Box bounds = obj.getBoundingBox();
-		
-		final float interactionWidth = ScaleUtils.getInteractionBoxWidthScale(obj);
-		final float interactionHeight = ScaleUtils.getInteractionBoxHeightScale(obj);
-		
-		if (interactionWidth != 1.0F || interactionHeight != 1.0F)
-		{
-			final double scaledXLength = bounds.getXLength() * 0.5D * (interactionWidth - 1.0F);
-			final double scaledYLength = bounds.getYLength() * 0.5D * (interactionHeight - 1.0F);
-			final double scaledZLength = bounds.getZLength() * 0.5D * (interactionWidth - 1.0F);
-			
-			return bounds.expand(scaledXLength, scaledYLength, scaledZLength);
-		}
-		
-		return bounds;
+		return ((PehkuiEntityExtensions) obj).pehkui_getInteractionBox();
 	}
 }
@@ -0,0 +1,21 @@
+package virtuoel.pehkui.mixin;
+
+import java.util.function.BooleanSupplier;
+
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+import net.minecraft.server.MinecraftServer;
+import virtuoel.pehkui.util.ScaleSyncQueue;
+
+@Mixin(MinecraftServer.class)
+public class MinecraftServerMixin
+{
+	@Inject(method = "tick", at = @At("TAIL"))
+	private void pehkui$tick(BooleanSupplier shouldKeepTicking, CallbackInfo info)
+	{
+		ScaleSyncQueue.flushAll();
+	}
+}
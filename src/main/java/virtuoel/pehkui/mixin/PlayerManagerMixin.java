@@ -19,7 +19,10 @@ public class PlayerManagerMixin
 	{
 		for (ScaleType type : ScaleRegistries.SCALE_TYPES.values())
 		{
-			type.getScaleData(player).markForSync(true);
+			if (type.getSyncPolicy().syncsToOwner())
+			{
+				type.getScaleData(player).markForSync(true);
+			}
 		}
 	}
 }
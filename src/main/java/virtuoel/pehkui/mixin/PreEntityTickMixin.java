@@ -10,9 +10,6 @@ import net.minecraft.entity.TntEntity;
 import net.minecraft.entity.decoration.AbstractDecorationEntity;
 import net.minecraft.entity.decoration.EndCrystalEntity;
 import net.minecraft.entity.vehicle.AbstractMinecartEntity;
-import virtuoel.pehkui.api.ScaleRegistries;
-import virtuoel.pehkui.api.ScaleType;
-import virtuoel.pehkui.util.ScaleUtils;
 
 @Mixin({
 	AbstractDecorationEntity.class,
@@ -26,9 +23,6 @@ public abstract class PreEntityTickMixin extends EntityMixin
 	@Inject(at = @At("HEAD"), method = "tick")
 	private void pehkui$tick(CallbackInfo info)
 	{
-		for (final ScaleType scaleType : ScaleRegistries.SCALE_TYPES.values())
-		{
-			ScaleUtils.tickScale(pehkui_getScaleData(scaleType));
-		}
+		pehkui_tickScales();
 	}
 }
@@ -0,0 +1,28 @@
+package virtuoel.pehkui.mixin.client.compat117plus;
+
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+import net.minecraft.entity.Entity;
+import virtuoel.pehkui.util.OversizedEntityIndex;
+import virtuoel.pehkui.util.PehkuiEntityExtensions;
+
+@Mixin(targets = "net.minecraft.client.world.ClientWorld$ClientEntityHandler")
+public class ClientWorldClientEntityHandlerMixin
+{
+	@Inject(method = "startTracking(Lnet/minecraft/entity/Entity;)V", at = @At("TAIL"))
+	private void pehkui$startTracking(Entity entity, CallbackInfo info)
+	{
+		((PehkuiEntityExtensions) entity).pehkui_setTrackedByWorld(true);
+		OversizedEntityIndex.update(entity);
+	}
+	
+	@Inject(method = "stopTracking(Lnet/minecraft/entity/Entity;)V", at = @At("TAIL"))
+	private void pehkui$stopTracking(Entity entity, CallbackInfo info)
+	{
+		((PehkuiEntityExtensions) entity).pehkui_setTrackedByWorld(false);
+		OversizedEntityIndex.remove(entity);
+	}
+}
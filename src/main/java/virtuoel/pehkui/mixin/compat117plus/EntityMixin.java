@@ -2,10 +2,15 @@ package virtuoel.pehkui.mixin.compat117plus;
 
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.ModifyArg;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 import net.minecraft.entity.Entity;
+import net.minecraft.util.math.Box;
 import virtuoel.pehkui.api.PehkuiConfig;
+import virtuoel.pehkui.util.CrammingGrid;
+import virtuoel.pehkui.util.OversizedEntityIndex;
 import virtuoel.pehkui.util.ScaleUtils;
 
 @Mixin(Entity.class)
@@ -26,4 +31,11 @@ public class EntityMixin
 		
 		return distance;
 	}
+	
+	@Inject(at = @At("TAIL"), method = "setBoundingBox")
+	private void pehkui$setBoundingBox(Box boundingBox, CallbackInfo info)
+	{
+		OversizedEntityIndex.update((Entity) (Object) this);
+		CrammingGrid.update((Entity) (Object) this);
+	}
 }
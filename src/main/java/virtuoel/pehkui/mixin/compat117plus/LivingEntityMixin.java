@@ -1,12 +1,21 @@
 package virtuoel.pehkui.mixin.compat117plus;
 
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.jetbrains.annotations.Nullable;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Constant;
 import org.spongepowered.asm.mixin.injection.ModifyConstant;
+import org.spongepowered.asm.mixin.injection.Redirect;
 
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.entity.damage.DamageSource;
+import net.minecraft.util.math.Box;
+import net.minecraft.world.World;
+import virtuoel.pehkui.util.CrammingGrid;
 import virtuoel.pehkui.util.ScaleUtils;
 
 @Mixin(LivingEntity.class)
@@ -27,4 +36,10 @@ public abstract class LivingEntityMixin
 		
 		return scale != 1.0F ? scale * value : value;
 	}
+	
+	@Redirect(method = "tickCramming", at = @At(value = "INVOKE", target = "Lnet/minecraft/world/World;getOtherEntities(Lnet/minecraft/entity/Entity;Lnet/minecraft/util/math/Box;Ljava/util/function/Predicate;)Ljava/util/List;"))
+	private List<Entity> pehkui$tickCramming$getOtherEntities(World world, @Nullable Entity except, Box box, Predicate<? super Entity> predicate)
+	{
+		return CrammingGrid.getOtherEntities(world, except, box, predicate);
+	}
 }
@@ -0,0 +1,49 @@
+package virtuoel.pehkui.mixin.compat117plus;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.jetbrains.annotations.Nullable;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.util.TypeFilter;
+import net.minecraft.util.math.Box;
+import net.minecraft.world.World;
+import virtuoel.pehkui.util.CrammingGrid;
+import virtuoel.pehkui.util.OversizedEntityIndex;
+import virtuoel.pehkui.util.PehkuiWorldExtensions;
+
+@Mixin(World.class)
+public class WorldMixin implements PehkuiWorldExtensions
+{
+	private final OversizedEntityIndex pehkui_oversizedEntityIndex = new OversizedEntityIndex();
+	private final CrammingGrid pehkui_crammingGrid = new CrammingGrid();
+	
+	@Override
+	public OversizedEntityIndex pehkui_getOversizedEntityIndex()
+	{
+		return pehkui_oversizedEntityIndex;
+	}
+	
+	@Override
+	public CrammingGrid pehkui_getCrammingGrid()
+	{
+		return pehkui_crammingGrid;
+	}
+	
+	@Inject(method = "getOtherEntities", at = @At("RETURN"))
+	private void pehkui$getOtherEntities(@Nullable Entity except, Box box, Predicate<? super Entity> predicate, CallbackInfoReturnable<List<Entity>> info)
+	{
+		pehkui_oversizedEntityIndex.collect(except, box, e -> e, predicate, info.getReturnValue());
+	}
+	
+	@Inject(method = "getEntitiesByType", at = @At("RETURN"))
+	private <T extends Entity> void pehkui$getEntitiesByType(TypeFilter<Entity, T> filter, Box box, Predicate<? super T> predicate, CallbackInfoReturnable<List<T>> info)
+	{
+		pehkui_oversizedEntityIndex.collect(null, box, filter::downcast, predicate, info.getReturnValue());
+	}
+}
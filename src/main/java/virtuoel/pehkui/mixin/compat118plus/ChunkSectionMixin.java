@@ -0,0 +1,46 @@
+package virtuoel.pehkui.mixin.compat118plus;
+
+import org.jetbrains.annotations.Nullable;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.world.chunk.ChunkSection;
+import virtuoel.pehkui.util.PehkuiChunkSectionExtensions;
+
+@Mixin(ChunkSection.class)
+public class ChunkSectionMixin implements PehkuiChunkSectionExtensions
+{
+	private long[] pehkui_collisionSummary = null;
+	
+	@Override
+	public @Nullable long[] pehkui_getCollisionSummary()
+	{
+		return pehkui_collisionSummary;
+	}
+	
+	@Override
+	public void pehkui_setCollisionSummary(@Nullable long[] summary)
+	{
+		pehkui_collisionSummary = summary;
+	}
+	
+	@Inject(method = "setBlockState(IIILnet/minecraft/block/BlockState;Z)Lnet/minecraft/block/BlockState;", at = @At("RETURN"))
+	private void pehkui$setBlockState(int x, int y, int z, BlockState state, boolean lock, CallbackInfoReturnable<BlockState> info)
+	{
+		if (info.getReturnValue() != state)
+		{
+			pehkui_collisionSummary = null;
+		}
+	}
+	
+	@Inject(method = "readDataPacket", at = @At("RETURN"))
+	private void pehkui$readDataPacket(PacketByteBuf buf, CallbackInfo info)
+	{
+		pehkui_collisionSummary = null;
+	}
+}
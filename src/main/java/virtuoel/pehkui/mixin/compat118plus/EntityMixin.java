@@ -0,0 +1,22 @@
+package virtuoel.pehkui.mixin.compat118plus;
+
+import org.jetbrains.annotations.Nullable;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Redirect;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.shape.VoxelShape;
+import net.minecraft.world.World;
+import virtuoel.pehkui.util.CoarseBlockCollisions;
+
+@Mixin(Entity.class)
+public class EntityMixin
+{
+	@Redirect(method = "adjustMovementForCollisions(Lnet/minecraft/entity/Entity;Lnet/minecraft/util/math/Vec3d;Lnet/minecraft/util/math/Box;Lnet/minecraft/world/World;Ljava/util/List;)Lnet/minecraft/util/math/Vec3d;", at = @At(value = "INVOKE", target = "Lnet/minecraft/world/World;getBlockCollisions(Lnet/minecraft/entity/Entity;Lnet/minecraft/util/math/Box;)Ljava/lang/Iterable;"))
+	private static Iterable<VoxelShape> pehkui$adjustMovementForCollisions$getBlockCollisions(World world, @Nullable Entity entity, Box box)
+	{
+		return CoarseBlockCollisions.getBlockCollisions(world, entity, box);
+	}
+}
@@ -9,7 +9,7 @@ import net.minecraft.util.math.Box;
 import net.minecraft.world.entity.EntityLike;
 import net.minecraft.world.entity.EntityTrackingSection;
 import virtuoel.pehkui.util.MixinConstants;
-import virtuoel.pehkui.util.ScaleUtils;
+import virtuoel.pehkui.util.PehkuiEntityExtensions;
 
 @Mixin(EntityTrackingSection.class)
 public class EntityTrackingSectionMixin
@@ -17,50 +17,22 @@ public class EntityTrackingSectionMixin
 	@Redirect(method = MixinConstants.FOR_EACH, at = @At(value = "INVOKE", target = "Lnet/minecraft/world/entity/EntityLike;getBoundingBox()Lnet/minecraft/util/math/Box;", remap = true), remap = false)
 	private Box pehkui$forEach$getBoundingBox(EntityLike obj)
 	{
-		final Box bounds = obj.getBoundingBox();
-		
 		if (obj instanceof Entity)
 		{
-			final Entity entity = (Entity) obj;
-			
-			final float interactionWidth = ScaleUtils.getInteractionBoxWidthScale(entity);
-			final float interactionHeight = ScaleUtils.getInteractionBoxHeightScale(entity);
-			
-			if (interactionWidth != 1.0F || interactionHeight != 1.0F)
-			{
-				final double scaledXLength = bounds.getXLength() * 0.5D * (interactionWidth - 1.0F);
-				final double scaledYLength = bounds.getYLength() * 0.5D * (interactionHeight - 1.0F);
-				final double scaledZLength = bounds.getZLength() * 0.5D * (interactionWidth - 1.0F);
-				
-				return bounds.expand(scaledXLength, scaledYLength, scaledZLength);
-			}
+			return ((PehkuiEntityExtensions) obj).pehkui_getInteractionBox();
 		}
 		
-		return bounds;
+		return obj.getBoundingBox();
 	}
 	
 	@Redirect(method = MixinConstants.FOR_EACH_FILTERED, at = @At(value = "INVOKE", target = "Lnet/minecraft/world/entity/EntityLike;getBoundingBox()Lnet/minecraft/util/math/Box;", remap = true), remap = false)
 	private Box pehkui$forEach$getBoundingBox$filtered(EntityLike obj)
 	{
-		final Box bounds = obj.getBoundingBox();
-		
 		if (obj instanceof Entity)
 		{
-			final Entity entity = (Entity) obj;
-			
-			final float interactionWidth = ScaleUtils.getInteractionBoxWidthScale(entity);
-			final float interactionHeight = ScaleUtils.getInteractionBoxHeightScale(entity);
-			
-			if (interactionWidth != 1.0F || interactionHeight != 1.0F)
-			{
-				final double scaledXLength = bounds.getXLength() * 0.5D * (interactionWidth - 1.0F);
-				final double scaledYLength = bounds.getYLength() * 0.5D * (interactionHeight - 1.0F);
-				final double scaledZLength = bounds.getZLength() * 0.5D * (interactionWidth - 1.0F);
-				
-				return bounds.expand(scaledXLength, scaledYLength, scaledZLength);
-			}
+			return ((PehkuiEntityExtensions) obj).pehkui_getInteractionBox();
 		}
 		
-		return bounds;
+		return obj.getBoundingBox();
 	}
 }
@@ -9,6 +9,7 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.entity.player.PlayerEntity;
+import virtuoel.pehkui.util.PehkuiEntityExtensions;
 import virtuoel.pehkui.util.ScaleUtils;
 
 @Pseudo
@@ -21,6 +22,8 @@ public class IdentityComponentMixin
 	@Inject(at = @At("TAIL"), method = "setIdentity", remap = false)
 	private void pehkui$setIdentity(LivingEntity identity, CallbackInfoReturnable<Boolean> info)
 	{
+		((PehkuiEntityExtensions) player).pehkui_invalidateScaleCaches();
+		
 		if (identity != null)
 		{
 			ScaleUtils.loadScale(identity, player);
@@ -10,6 +10,7 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.nbt.NbtCompound;
+import virtuoel.pehkui.util.PehkuiEntityExtensions;
 import virtuoel.pehkui.util.ScaleUtils;
 
 @Pseudo
@@ -22,6 +23,8 @@ public class IdentityComponentMixin
 	@Inject(at = @At("RETURN"), method = "fromTag", remap = false)
 	private void pehkui$fromTag(NbtCompound nbt, CallbackInfo info)
 	{
+		((PehkuiEntityExtensions) player).pehkui_invalidateScaleCaches();
+		
 		if (this.identity != null)
 		{
 			ScaleUtils.loadScale(player, identity);
@@ -6,6 +6,8 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.UUID;
 import java.util.function.Consumer;
 
@@ -30,12 +32,16 @@ import net.minecraft.server.command.CommandManager;
 import net.minecraft.server.command.ServerCommandSource;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.text.Text;
+import net.minecraft.util.Identifier;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Direction;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.world.World;
 import virtuoel.pehkui.Pehkui;
 import virtuoel.pehkui.api.PehkuiConfig;
+import virtuoel.pehkui.api.PehkuiNetworkStats;
+import virtuoel.pehkui.api.ScaleRegistries;
+import virtuoel.pehkui.api.ScaleType;
 import virtuoel.pehkui.util.CommandUtils;
 import virtuoel.pehkui.util.ConfigSyncUtils;
 import virtuoel.pehkui.util.I18nUtils;
@@ -52,6 +58,18 @@ public class DebugCommand
 		
 		builder.then(CommandManager.literal("debug")
 			.then(ConfigSyncUtils.registerConfigCommands())
+			.then(CommandManager.literal("network")
+				.executes(DebugCommand::reportNetworkStats)
+				.then(CommandManager.literal("reset")
+					.executes(context ->
+					{
+						PehkuiNetworkStats.reset();
+						CommandUtils.sendFeedback(context.getSource(), () -> I18nUtils.translate("commands.pehkui.debug.network.reset", "Reset network statistics."), false);
+						
+						return 1;
+					})
+				)
+			)
 		);
 		
 		if (FabricLoader.getInstance().isDevelopmentEnvironment() || PehkuiConfig.COMMON.enableCommands.get())
@@ -93,12 +111,7 @@ public class DebugCommand
 					.then(CommandManager.literal("garbage_collect")
 						.executes(context ->
 						{
-							context.getSource().getPlayerOrThrow().networkHandler.sendPacket(
-								new CustomPayloadS2CPacket(Pehkui.DEBUG_PACKET,
-									new PacketByteBuf(Unpooled.buffer())
-									.writeEnumConstant(DebugPacketType.GARBAGE_COLLECT)
-								)
-							);
+							sendDebugPacket(context.getSource().getPlayerOrThrow(), DebugPacketType.GARBAGE_COLLECT);
 							
 							System.gc();
 							
@@ -124,6 +137,56 @@ public class DebugCommand
 		commandDispatcher.register(builder);
 	}
 	
+	private static void sendDebugPacket(final ServerPlayerEntity player, final DebugPacketType type)
+	{
+		final PacketByteBuf buffer = new PacketByteBuf(Unpooled.buffer()).writeEnumConstant(type);
+		
+		PehkuiNetworkStats.onPacketSent(Pehkui.DEBUG_PACKET, buffer.readableBytes(), 0);
+		player.networkHandler.sendPacket(new CustomPayloadS2CPacket(Pehkui.DEBUG_PACKET, buffer));
+	}
+	
+	private static int reportNetworkStats(final CommandContext<ServerCommandSource> context)
+	{
+		final ServerCommandSource source = context.getSource();
+		
+		final Map<Identifier, PehkuiNetworkStats.Counter> sent = PehkuiNetworkStats.getSentChannels();
+		final Map<Identifier, PehkuiNetworkStats.Counter> received = PehkuiNetworkStats.getReceivedChannels();
+		
+		if (sent.isEmpty() && received.isEmpty())
+		{
+			CommandUtils.sendFeedback(source, () -> I18nUtils.translate("commands.pehkui.debug.network.empty", "No Pehkui packets have been sent or received."), false);
+			return 0;
+		}
+		
+		for (final Entry<Identifier, PehkuiNetworkStats.Counter> entry : sent.entrySet())
+		{
+			final PehkuiNetworkStats.Counter c = entry.getValue();
+			CommandUtils.sendFeedback(source, () -> I18nUtils.translate("commands.pehkui.debug.network.channel.sent", "Sent %s: %d packets, %d bytes, %d entities", entry.getKey(), c.getPackets(), c.getBytes(), c.getEntities()), false);
+		}
+		
+		for (final Entry<Identifier, PehkuiNetworkStats.Counter> entry : received.entrySet())
+		{
+			final PehkuiNetworkStats.Counter c = entry.getValue();
+			CommandUtils.sendFeedback(source, () -> I18nUtils.translate("commands.pehkui.debug.network.channel.received", "Received %s: %d packets, %d bytes, %d entities", entry.getKey(), c.getPackets(), c.getBytes(), c.getEntities()), false);
+		}
+		
+		for (final PehkuiNetworkStats.SyncKind kind : PehkuiNetworkStats.SyncKind.values())
+		{
+			final String name = kind.name().toLowerCase(Locale.ROOT);
+			final PehkuiNetworkStats.Counter c = PehkuiNetworkStats.getSentSyncs(kind);
+			CommandUtils.sendFeedback(source, () -> I18nUtils.translate("commands.pehkui.debug.network.sync", "Sent %s syncs: %d bytes, %d entities, %d scale data", name, c.getBytes(), c.getEntities(), c.getScaleData()), false);
+			
+			for (final Entry<ScaleType, PehkuiNetworkStats.Counter> entry : PehkuiNetworkStats.getSentTypes(kind).entrySet())
+			{
+				final Identifier id = ScaleRegistries.getId(ScaleRegistries.SCALE_TYPES, entry.getKey());
+				final long count = entry.getValue().getScaleData();
+				CommandUtils.sendFeedback(source, () -> I18nUtils.translate("commands.pehkui.debug.network.type", "  %s: %d", id, count), false);
+			}
+		}
+		
+		return 1;
+	}
+	
 	private static final Collection<UUID> MARKED_UUIDS = new HashSet<>();
 	private static final Collection<String> MARKED_USERNAMES = new HashSet<>();
 	
@@ -220,12 +283,7 @@ public class DebugCommand
 		final Entity executor = context.getSource().getEntity();
 		if (executor instanceof ServerPlayerEntity)
 		{
-			((ServerPlayerEntity) executor).networkHandler.sendPacket(
-				new CustomPayloadS2CPacket(Pehkui.DEBUG_PACKET,
-					new PacketByteBuf(Unpooled.buffer())
-					.writeEnumConstant(DebugPacketType.MIXIN_AUDIT)
-				)
-			);
+			sendDebugPacket((ServerPlayerEntity) executor, DebugPacketType.MIXIN_AUDIT);
 		}
 		
 		CommandUtils.sendFeedback(context.getSource(), () -> I18nUtils.translate("commands.pehkui.debug.audit.start", "Starting Mixin environment audit..."), false);
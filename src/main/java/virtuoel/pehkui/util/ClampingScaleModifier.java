@@ -8,6 +8,7 @@ import virtuoel.pehkui.api.ScaleModifier;
 public class ClampingScaleModifier extends ScaleModifier
 {
 	private final Supplier<Double> min, max;
+	private volatile Bounds bounds = null;
 	
 	public ClampingScaleModifier(final Supplier<Double> min, final Supplier<Double> max, final float priority)
 	{
@@ -19,12 +20,42 @@ public class ClampingScaleModifier extends ScaleModifier
 	@Override
 	public float modifyScale(final ScaleData scaleData, float modifiedScale, final float delta)
 	{
-		return Math.max(Math.min(modifiedScale, max.get().floatValue()), min.get().floatValue());
+		final Bounds bounds = getBounds();
+		
+		return Math.max(Math.min(modifiedScale, bounds.max), bounds.min);
 	}
 	
 	@Override
 	public float modifyPrevScale(final ScaleData scaleData, float modifiedScale)
 	{
-		return Math.max(Math.min(modifiedScale, max.get().floatValue()), min.get().floatValue());
+		final Bounds bounds = getBounds();
+		
+		return Math.max(Math.min(modifiedScale, bounds.max), bounds.min);
+	}
+	
+	private Bounds getBounds()
+	{
+		final Bounds bounds = this.bounds;
+		final int version = ConfigSyncUtils.getConfigVersion();
+		
+		if (bounds != null && bounds.version == version)
+		{
+			return bounds;
+		}
+		
+		return this.bounds = new Bounds(min.get().floatValue(), max.get().floatValue(), version);
+	}
+	
+	private static final class Bounds
+	{
+		final float min, max;
+		final int version;
+		
+		Bounds(final float min, final float max, final int version)
+		{
+			this.min = min;
+			this.max = max;
+			this.version = version;
+		}
 	}
 }
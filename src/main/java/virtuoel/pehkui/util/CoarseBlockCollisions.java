@@ -0,0 +1,308 @@
+package virtuoel.pehkui.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jetbrains.annotations.Nullable;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.ShapeContext;
+import net.minecraft.entity.Entity;
+import net.minecraft.util.function.BooleanBiFunction;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.shape.VoxelShape;
+import net.minecraft.util.shape.VoxelShapes;
+import net.minecraft.world.BlockView;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ChunkSection;
+import virtuoel.pehkui.api.PehkuiConfig;
+
+/**
+ * Block collisions for entities scaled to at least {@link PehkuiConfig.Server#coarseBlockCollisionScaleThreshold}.
+ * <p>Each chunk section caches which of its 4x4x4 cells are all air and which are all solid full cubes,
+ * until one of its blocks changes. Air cells are skipped and solid cells are added as one shape,
+ * so only the blocks of mixed cells near surfaces are looked at one by one, the same way vanilla does.
+ * <p>Solid cells are made of opaque full cubes, whose collision shape is assumed not to depend on the colliding entity.
+ * <p>The threshold is synced to clients, so movement they predict takes the same path as on the server.
+ */
+public final class CoarseBlockCollisions
+{
+	/**
+	 * Union of the full cubes of one cell, which keeps the block boundaries so entities already inside a cell collide like with separate blocks.
+	 */
+	private static final VoxelShape SOLID_CELL;
+	
+	static
+	{
+		VoxelShape shape = VoxelShapes.empty();
+		
+		for (int y = 0; y < 4; y++)
+		{
+			for (int z = 0; z < 4; z++)
+			{
+				for (int x = 0; x < 4; x++)
+				{
+					shape = VoxelShapes.combine(shape, VoxelShapes.fullCube().offset(x, y, z), BooleanBiFunction.OR);
+				}
+			}
+		}
+		
+		SOLID_CELL = shape;
+	}
+	
+	private static final int AIR = 0;
+	private static final int SOLID = 1;
+	
+	public static Iterable<VoxelShape> getBlockCollisions(final World world, @Nullable final Entity entity, final Box box)
+	{
+		if (entity == null)
+		{
+			return world.getBlockCollisions(entity, box);
+		}
+		
+		final double threshold = PehkuiConfig.SERVER.coarseBlockCollisionScaleThreshold.get();
+		
+		if (threshold <= 0.0D || Math.max(ScaleUtils.getBoundingBoxWidthScale(entity), ScaleUtils.getBoundingBoxHeightScale(entity)) < threshold)
+		{
+			return world.getBlockCollisions(entity, box);
+		}
+		
+		return new Query(world, entity, box).collect();
+	}
+	
+	private static final class Query
+	{
+		private final World world;
+		private final Box box;
+		private final VoxelShape boxShape;
+		private final ShapeContext context;
+		private final BlockPos.Mutable pos = new BlockPos.Mutable();
+		private final List<VoxelShape> shapes = new ArrayList<>();
+		
+		/**
+		 * Bounds of the blocks vanilla would check, of which the outer layer only collides if it reaches past its block.
+		 */
+		private final int minX;
+		private final int minY;
+		private final int minZ;
+		private final int maxX;
+		private final int maxY;
+		private final int maxZ;
+		
+		private Query(final World world, final Entity entity, final Box box)
+		{
+			this.world = world;
+			this.box = box;
+			this.boxShape = VoxelShapes.cuboid(box);
+			this.context = ShapeContext.of(entity);
+			
+			this.minX = MathHelper.floor(box.minX - 1.0E-7D) - 1;
+			this.minY = MathHelper.floor(box.minY - 1.0E-7D) - 1;
+			this.minZ = MathHelper.floor(box.minZ - 1.0E-7D) - 1;
+			this.maxX = MathHelper.floor(box.maxX + 1.0E-7D) + 1;
+			this.maxY = MathHelper.floor(box.maxY + 1.0E-7D) + 1;
+			this.maxZ = MathHelper.floor(box.maxZ + 1.0E-7D) + 1;
+		}
+		
+		private List<VoxelShape> collect()
+		{
+			final int bottomY = Math.max(this.minY, this.world.getBottomY());
+			final int topY = Math.min(this.maxY, this.world.getTopY() - 1);
+			
+			BlockView view;
+			for (int chunkX = this.minX >> 4; chunkX <= this.maxX >> 4; chunkX++)
+			{
+				for (int chunkZ = this.minZ >> 4; chunkZ <= this.maxZ >> 4; chunkZ++)
+				{
+					view = this.world.getChunkAsView(chunkX, chunkZ);
+					
+					if (view instanceof Chunk)
+					{
+						collectChunk((Chunk) view, chunkX << 4, chunkZ << 4, bottomY, topY);
+					}
+					else if (view != null)
+					{
+						collectBlocks(view,
+							Math.max(this.minX, chunkX << 4), bottomY, Math.max(this.minZ, chunkZ << 4),
+							Math.min(this.maxX, (chunkX << 4) + 15), topY, Math.min(this.maxZ, (chunkZ << 4) + 15)
+						);
+					}
+				}
+			}
+			
+			return this.shapes;
+		}
+		
+		private void collectChunk(final Chunk chunk, final int baseX, final int baseZ, final int bottomY, final int topY)
+		{
+			ChunkSection section;
+			long[] summary;
+			for (int sectionY = bottomY >> 4; sectionY <= topY >> 4; sectionY++)
+			{
+				section = chunk.getSection(chunk.sectionCoordToIndex(sectionY));
+				
+				if (section.isEmpty())
+				{
+					continue;
+				}
+				
+				final int baseY = sectionY << 4;
+				summary = getSummary(section, baseX, baseY, baseZ);
+				
+				final int x0 = Math.max(this.minX, baseX);
+				final int y0 = Math.max(bottomY, baseY);
+				final int z0 = Math.max(this.minZ, baseZ);
+				final int x1 = Math.min(this.maxX, baseX + 15);
+				final int y1 = Math.min(topY, baseY + 15);
+				final int z1 = Math.min(this.maxZ, baseZ + 15);
+				
+				for (int cellY = (y0 - baseY) >> 2; cellY <= (y1 - baseY) >> 2; cellY++)
+				{
+					for (int cellZ = (z0 - baseZ) >> 2; cellZ <= (z1 - baseZ) >> 2; cellZ++)
+					{
+						for (int cellX = (x0 - baseX) >> 2; cellX <= (x1 - baseX) >> 2; cellX++)
+						{
+							final long bit = cellBit(cellX, cellY, cellZ);
+							final int cornerX = baseX + (cellX << 2);
+							final int cornerY = baseY + (cellY << 2);
+							final int cornerZ = baseZ + (cellZ << 2);
+							
+							if ((summary[AIR] & bit) != 0)
+							{
+								continue;
+							}
+							
+							if ((summary[SOLID] & bit) != 0)
+							{
+								this.shapes.add(SOLID_CELL.offset(cornerX, cornerY, cornerZ));
+								continue;
+							}
+							
+							collectBlocks(chunk,
+								Math.max(x0, cornerX), Math.max(y0, cornerY), Math.max(z0, cornerZ),
+								Math.min(x1, cornerX + 3), Math.min(y1, cornerY + 3), Math.min(z1, cornerZ + 3)
+							);
+						}
+					}
+				}
+			}
+		}
+		
+		/**
+		 * Checks blocks one by one, following BlockCollisionSpliterator.
+		 */
+		private void collectBlocks(final BlockView view, final int x0, final int y0, final int z0, final int x1, final int y1, final int z1)
+		{
+			BlockState state;
+			VoxelShape shape;
+			for (int y = y0; y <= y1; y++)
+			{
+				for (int z = z0; z <= z1; z++)
+				{
+					for (int x = x0; x <= x1; x++)
+					{
+						final int edges = (x == this.minX || x == this.maxX ? 1 : 0) + (y == this.minY || y == this.maxY ? 1 : 0) + (z == this.minZ || z == this.maxZ ? 1 : 0);
+						
+						if (edges == 3)
+						{
+							continue;
+						}
+						
+						this.pos.set(x, y, z);
+						state = view.getBlockState(this.pos);
+						
+						if ((edges == 1 && !state.exceedsCube()) || (edges == 2 && !state.isOf(Blocks.MOVING_PISTON)))
+						{
+							continue;
+						}
+						
+						shape = state.getCollisionShape(this.world, this.pos, this.context);
+						
+						if (shape == VoxelShapes.fullCube())
+						{
+							if (this.box.intersects(x, y, z, x + 1.0D, y + 1.0D, z + 1.0D))
+							{
+								this.shapes.add(shape.offset(x, y, z));
+							}
+						}
+						else
+						{
+							shape = shape.offset(x, y, z);
+							
+							if (!shape.isEmpty() && VoxelShapes.matchesAnywhere(shape, this.boxShape, BooleanBiFunction.AND))
+							{
+								this.shapes.add(shape);
+							}
+						}
+					}
+				}
+			}
+		}
+		
+		private long[] getSummary(final ChunkSection section, final int baseX, final int baseY, final int baseZ)
+		{
+			final PehkuiChunkSectionExtensions extensions = (PehkuiChunkSectionExtensions) section;
+			long[] summary = extensions.pehkui_getCollisionSummary();
+			
+			if (summary == null)
+			{
+				long air = -1L;
+				long solid = -1L;
+				
+				BlockState state;
+				for (int y = 0; y < 16; y++)
+				{
+					for (int z = 0; z < 16; z++)
+					{
+						for (int x = 0; x < 16; x++)
+						{
+							final long bit = cellBit(x >> 2, y >> 2, z >> 2);
+							
+							if (((air | solid) & bit) == 0)
+							{
+								continue;
+							}
+							
+							state = section.getBlockState(x, y, z);
+							
+							if (!state.isAir())
+							{
+								air &= ~bit;
+							}
+							
+							if ((solid & bit) != 0)
+							{
+								this.pos.set(baseX + x, baseY + y, baseZ + z);
+								
+								if (!state.isOpaqueFullCube(this.world, this.pos) || !Block.isShapeFullCube(state.getCollisionShape(this.world, this.pos)))
+								{
+									solid &= ~bit;
+								}
+							}
+						}
+					}
+				}
+				
+				summary = new long[] { air, solid };
+				extensions.pehkui_setCollisionSummary(summary);
+			}
+			
+			return summary;
+		}
+	}
+	
+	private static long cellBit(final int cellX, final int cellY, final int cellZ)
+	{
+		return 1L << ((cellY << 4) | (cellZ << 2) | cellX);
+	}
+	
+	private CoarseBlockCollisions()
+	{
+		
+	}
+}
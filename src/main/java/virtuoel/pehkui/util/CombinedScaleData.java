@@ -36,6 +36,25 @@ public class CombinedScaleData extends ScaleData
 		}
 	}
 	
+	@Override
+	public boolean shouldTick()
+	{
+		if (super.shouldTick())
+		{
+			return true;
+		}
+		
+		for (final ScaleData d : getData())
+		{
+			if (d.shouldTick())
+			{
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
 	@Override
 	public void setBaseScale(float scale)
 	{
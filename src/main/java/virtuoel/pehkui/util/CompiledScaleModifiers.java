@@ -0,0 +1,186 @@
+package virtuoel.pehkui.util;
+
+import java.util.Collection;
+import java.util.function.DoubleBinaryOperator;
+
+import net.minecraft.entity.Entity;
+import virtuoel.pehkui.api.ScaleData;
+import virtuoel.pehkui.api.ScaleModifier;
+import virtuoel.pehkui.api.ScaleOperations;
+import virtuoel.pehkui.api.ScaleType;
+import virtuoel.pehkui.api.TypedScaleModifier;
+
+/**
+ * Flattened form of a sorted set of scale modifiers.
+ * <p>Plain {@link TypedScaleModifier}s that multiply or divide by another scale type are resolved ahead of time,
+ * so applying them is a direct lookup of the other type's scale instead of a chain of virtual calls.
+ */
+public final class CompiledScaleModifiers
+{
+	private static final byte GENERIC = 0;
+	private static final byte MULTIPLY = 1;
+	private static final byte DIVIDE = 2;
+	
+	private final ScaleModifier[] modifiers;
+	private final ScaleType[] types;
+	private final byte[] operations;
+	private final boolean cacheable;
+	private final boolean standalone;
+	
+	private CompiledScaleModifiers(final ScaleModifier[] modifiers, final ScaleType[] types, final byte[] operations, final boolean cacheable, final boolean standalone)
+	{
+		this.modifiers = modifiers;
+		this.types = types;
+		this.operations = operations;
+		this.cacheable = cacheable;
+		this.standalone = standalone;
+	}
+	
+	/**
+	 * Whether the result of these modifiers only depends on scale data and config values,
+	 * so a cached result stays valid until the entity's scale cache version changes.
+	 * Modifiers from other mods may read arbitrary entity state, so they are only cached for a single tick.
+	 */
+	public boolean isCacheable()
+	{
+		return this.cacheable;
+	}
+	
+	/**
+	 * Whether these modifiers only read the value passed to them and the scales of other types,
+	 * so they can be applied for an entity without constructing scale data of the modified type.
+	 */
+	public boolean isStandalone()
+	{
+		return this.standalone;
+	}
+	
+	public static CompiledScaleModifiers compile(final Collection<ScaleModifier> modifiers)
+	{
+		final int size = modifiers.size();
+		final ScaleModifier[] compiled = new ScaleModifier[size];
+		final ScaleType[] types = new ScaleType[size];
+		final byte[] operations = new byte[size];
+		boolean cacheable = true;
+		boolean standalone = true;
+		
+		int i = 0;
+		for (final ScaleModifier modifier : modifiers)
+		{
+			compiled[i] = modifier;
+			
+			final Class<?> modifierClass = modifier.getClass();
+			
+			if (modifierClass != ScaleModifier.class && modifierClass != TypedScaleModifier.class && modifierClass != ClampingScaleModifier.class)
+			{
+				cacheable = false;
+			}
+			
+			if (modifier.getClass() == TypedScaleModifier.class)
+			{
+				final TypedScaleModifier typed = (TypedScaleModifier) modifier;
+				final DoubleBinaryOperator operation = typed.getOperation();
+				
+				if (operation == ScaleOperations.MULTIPLY)
+				{
+					types[i] = typed.getType();
+					operations[i] = MULTIPLY;
+				}
+				else if (operation == ScaleOperations.DIVIDE)
+				{
+					types[i] = typed.getType();
+					operations[i] = DIVIDE;
+				}
+			}
+			
+			if (types[i] == null && modifierClass != ScaleModifier.class && modifierClass != ClampingScaleModifier.class)
+			{
+				standalone = false;
+			}
+			
+			i++;
+		}
+		
+		return new CompiledScaleModifiers(compiled, types, operations, cacheable, standalone);
+	}
+	
+	public float modifyScale(final ScaleData scaleData, float value, final float delta)
+	{
+		final ScaleModifier[] modifiers = this.modifiers;
+		final ScaleType ownType = scaleData.getScaleType();
+		final Entity entity = scaleData.getEntity();
+		
+		ScaleType type;
+		for (int i = 0; i < modifiers.length; i++)
+		{
+			type = this.types[i];
+			
+			if (type == null || entity == null)
+			{
+				value = modifiers[i].modifyScale(scaleData, value, delta);
+			}
+			else if (type != ownType)
+			{
+				final double typed = ((PehkuiEntityExtensions) entity).pehkui_getScaleData(type).getScale(delta);
+				
+				value = (float) (this.operations[i] == MULTIPLY ? value * typed : value / typed);
+			}
+		}
+		
+		return value;
+	}
+	
+	/**
+	 * Applies these modifiers for an entity that has no scale data of the given type.
+	 * Only valid if {@link #isStandalone()}.
+	 */
+	public float modifyDefaultScale(final Entity entity, final ScaleType ownType, float value, final float delta)
+	{
+		final ScaleModifier[] modifiers = this.modifiers;
+		
+		ScaleType type;
+		for (int i = 0; i < modifiers.length; i++)
+		{
+			type = this.types[i];
+			
+			if (type == null)
+			{
+				value = modifiers[i].modifyScale(null, value, delta);
+			}
+			else if (type != ownType)
+			{
+				final double typed = ScaleUtils.getTypedScale(entity, type, delta);
+				
+				value = (float) (this.operations[i] == MULTIPLY ? value * typed : value / typed);
+			}
+		}
+		
+		return value;
+	}
+	
+	public float modifyPrevScale(final ScaleData scaleData, float value)
+	{
+		final ScaleModifier[] modifiers = this.modifiers;
+		final ScaleType ownType = scaleData.getScaleType();
+		final Entity entity = scaleData.getEntity();
+		
+		ScaleType type;
+		for (int i = 0; i < modifiers.length; i++)
+		{
+			type = this.types[i];
+			
+			if (type == null || entity == null)
+			{
+				value = modifiers[i].modifyPrevScale(scaleData, value);
+			}
+			else if (type != ownType)
+			{
+				final double typed = ((PehkuiEntityExtensions) entity).pehkui_getScaleData(type).getPrevScale();
+				
+				value = (float) (this.operations[i] == MULTIPLY ? value * typed : value / typed);
+			}
+		}
+		
+		return value;
+	}
+}
@@ -1,8 +1,10 @@
 package virtuoel.pehkui.util;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -10,6 +12,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
@@ -17,6 +22,8 @@ import java.util.function.Supplier;
 
 import org.jetbrains.annotations.Nullable;
 
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.mojang.brigadier.arguments.ArgumentType;
 import com.mojang.brigadier.arguments.BoolArgumentType;
 import com.mojang.brigadier.arguments.DoubleArgumentType;
@@ -36,6 +43,7 @@ import virtuoel.kanos_config.api.JsonConfigHandler;
 import virtuoel.kanos_config.api.MutableConfigEntry;
 import virtuoel.pehkui.Pehkui;
 import virtuoel.pehkui.api.PehkuiConfig;
+import virtuoel.pehkui.api.PehkuiNetworkStats;
 
 public class ConfigSyncUtils
 {
@@ -94,12 +102,221 @@ public class ConfigSyncUtils
 		));
 	}
 	
+	private static final AtomicInteger CONFIG_VERSION = new AtomicInteger();
+	
+	/**
+	 * Incremented whenever a config value may have changed, so values derived from the config can be cached until it changes.
+	 */
+	public static int getConfigVersion()
+	{
+		return CONFIG_VERSION.get();
+	}
+	
+	public static void markConfigChanged()
+	{
+		CONFIG_VERSION.incrementAndGet();
+	}
+	
 	public static void resetSyncedConfigs()
 	{
 		SYNCED_CONFIGS.values().forEach((entry) ->
 		{
 			entry.setSyncedValue(null);
 		});
+		
+		clientSnapshotHash = NO_SNAPSHOT;
+	}
+	
+	/**
+	 * Hash sent by clients that have not received a config snapshot.
+	 */
+	public static final long NO_SNAPSHOT = 0L;
+	
+	private static volatile long clientSnapshotHash = NO_SNAPSHOT;
+	
+	/**
+	 * @return Hash of the config snapshot the client last received, which it announces when joining so an identical snapshot is not resent
+	 */
+	public static long getClientSnapshotHash()
+	{
+		return clientSnapshotHash;
+	}
+	
+	private static volatile ConfigSnapshot serverSnapshot = null;
+	private static final Map<ServerPlayNetworkHandler, ConfigSnapshot> SENT_SNAPSHOTS = Collections.synchronizedMap(new WeakHashMap<>());
+	
+	/**
+	 * Gets the current contents of the synced config entries, rebuilt when the config version changed.
+	 * The previous snapshot is kept if its contents are identical.
+	 */
+	private static ConfigSnapshot getServerSnapshot()
+	{
+		ConfigSnapshot snapshot = serverSnapshot;
+		final int version = getConfigVersion();
+		
+		if (snapshot == null || snapshot.configVersion != version)
+		{
+			synchronized (SENT_SNAPSHOTS)
+			{
+				snapshot = serverSnapshot;
+				
+				if (snapshot == null || snapshot.configVersion != version)
+				{
+					final ConfigSnapshot created = new ConfigSnapshot(version);
+					
+					if (snapshot != null && snapshot.hash == created.hash && snapshot.entries.keySet().equals(created.entries.keySet()))
+					{
+						snapshot.configVersion = version;
+					}
+					else
+					{
+						snapshot = created;
+					}
+					
+					serverSnapshot = snapshot;
+				}
+			}
+		}
+		
+		return snapshot;
+	}
+	
+	/**
+	 * Called when a client announces the hash of its cached config snapshot after joining.
+	 * The current snapshot is only sent if the hashes differ.
+	 */
+	public static void onClientSnapshotHash(final ServerPlayNetworkHandler networkHandler, final long hash)
+	{
+		final ConfigSnapshot snapshot = getServerSnapshot();
+		
+		if (hash != NO_SNAPSHOT && hash == snapshot.hash)
+		{
+			SENT_SNAPSHOTS.put(networkHandler, snapshot);
+		}
+		else
+		{
+			sendSnapshot(networkHandler, snapshot, null);
+		}
+	}
+	
+	public static void removeSnapshot(final ServerPlayNetworkHandler networkHandler)
+	{
+		SENT_SNAPSHOTS.remove(networkHandler);
+	}
+	
+	/**
+	 * Resends the full config snapshot to the given players, regardless of what they were sent before.
+	 */
+	public static void resyncConfigs(final Collection<ServerPlayerEntity> players)
+	{
+		for (final ServerPlayerEntity player : players)
+		{
+			SENT_SNAPSHOTS.remove(player.networkHandler);
+			
+			if (NETWORKING_API_LOADED && ServerPlayNetworking.canSend(player.networkHandler, Pehkui.CONFIG_SNAPSHOT_PACKET))
+			{
+				sendSnapshot(player.networkHandler, getServerSnapshot(), null);
+			}
+			else
+			{
+				syncConfigs(player.networkHandler);
+			}
+		}
+	}
+	
+	/**
+	 * Sends the entries of a snapshot that differ from a previously sent one, or all entries if none was sent.
+	 */
+	private static void sendSnapshot(final ServerPlayNetworkHandler networkHandler, final ConfigSnapshot snapshot, @Nullable final ConfigSnapshot previous)
+	{
+		final PacketByteBuf buffer = new PacketByteBuf(Unpooled.buffer());
+		
+		buffer.writeLong(snapshot.hash);
+		
+		final int countIndex = buffer.writerIndex();
+		buffer.writeInt(0);
+		
+		int count = 0;
+		for (final Entry<String, byte[]> entry : snapshot.entries.entrySet())
+		{
+			if (previous == null || !Arrays.equals(entry.getValue(), previous.entries.get(entry.getKey())))
+			{
+				buffer.writeString(entry.getKey());
+				buffer.writeBytes(entry.getValue());
+				count++;
+			}
+		}
+		
+		buffer.setInt(countIndex, count);
+		
+		PehkuiNetworkStats.onPacketSent(Pehkui.CONFIG_SNAPSHOT_PACKET, buffer.readableBytes(), 0);
+		networkHandler.sendPacket(new CustomPayloadS2CPacket(Pehkui.CONFIG_SNAPSHOT_PACKET, buffer));
+		SENT_SNAPSHOTS.put(networkHandler, snapshot);
+	}
+	
+	/**
+	 * Reads a config snapshot or delta sent by {@link #sendSnapshot}.
+	 * The snapshot's hash is only cached if every entry could be read.
+	 */
+	public static Runnable readConfigSnapshot(final PacketByteBuf buffer)
+	{
+		final long hash = buffer.readLong();
+		final int qty = buffer.readInt();
+		
+		final List<Runnable> tasks = new ArrayList<>();
+		final boolean complete = readConfigs(buffer, qty, tasks);
+		
+		return () ->
+		{
+			tasks.forEach(Runnable::run);
+			clientSnapshotHash = complete ? hash : NO_SNAPSHOT;
+		};
+	}
+	
+	/**
+	 * Encoded values of every synced config entry at one config version, along with a hash of their contents.
+	 */
+	private static final class ConfigSnapshot
+	{
+		private int configVersion;
+		private final long hash;
+		private final Map<String, byte[]> entries = new TreeMap<>();
+		
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		private ConfigSnapshot(final int configVersion)
+		{
+			this.configVersion = configVersion;
+			
+			final PacketByteBuf buffer = new PacketByteBuf(Unpooled.buffer());
+			
+			SyncableConfigEntry<?> entry;
+			for (final Entry<String, SyncableConfigEntry<?>> e : SYNCED_CONFIGS.entrySet())
+			{
+				entry = e.getValue();
+				
+				if (entry != null)
+				{
+					buffer.clear();
+					((ConfigEntryCodec) SYNCED_CONFIG_CODECS.get(e.getKey())).write(buffer, entry);
+					
+					final byte[] bytes = new byte[buffer.readableBytes()];
+					buffer.readBytes(bytes);
+					
+					this.entries.put(e.getKey(), bytes);
+				}
+			}
+			
+			final Hasher hasher = Hashing.murmur3_128().newHasher();
+			
+			for (final Entry<String, byte[]> e : this.entries.entrySet())
+			{
+				hasher.putString(e.getKey(), StandardCharsets.UTF_8);
+				hasher.putInt(e.getValue().length);
+				hasher.putBytes(e.getValue());
+			}
+			
+			this.hash = hasher.hash().asLong();
+		}
 	}
 	
 	public static void syncConfigs(final Collection<ServerPlayerEntity> players)
@@ -133,13 +350,34 @@ public class ConfigSyncUtils
 	
 	private static final boolean NETWORKING_API_LOADED = ModLoaderUtils.isModLoaded("fabric-networking-api-v1");
 	
+	/**
+	 * Clients that support config snapshots are sent the entries that changed since their last snapshot, once they announced their cached snapshot's hash.
+	 * Other clients are sent the given entries.
+	 */
 	public static void syncConfigs(final ServerPlayNetworkHandler networkHandler, final Collection<SyncableConfigEntry<?>> configEntries)
 	{
 		if (NETWORKING_API_LOADED)
 		{
-			if (ServerPlayNetworking.canSend(networkHandler, Pehkui.CONFIG_SYNC_PACKET))
+			if (ServerPlayNetworking.canSend(networkHandler, Pehkui.CONFIG_SNAPSHOT_PACKET))
 			{
-				networkHandler.sendPacket(createConfigSyncPacket(configEntries));
+				final ConfigSnapshot sent = SENT_SNAPSHOTS.get(networkHandler);
+				
+				if (sent != null)
+				{
+					final ConfigSnapshot snapshot = getServerSnapshot();
+					
+					if (sent != snapshot)
+					{
+						sendSnapshot(networkHandler, snapshot, sent);
+					}
+				}
+			}
+			else if (ServerPlayNetworking.canSend(networkHandler, Pehkui.CONFIG_SYNC_PACKET))
+			{
+				final CustomPayloadS2CPacket packet = createConfigSyncPacket(configEntries);
+				
+				PehkuiNetworkStats.onPacketSent(Pehkui.CONFIG_SYNC_PACKET, packet.getData().readableBytes(), 0);
+				networkHandler.sendPacket(packet);
 			}
 		}
 	}
@@ -159,13 +397,27 @@ public class ConfigSyncUtils
 		return new CustomPayloadS2CPacket(Pehkui.CONFIG_SYNC_PACKET, buffer);
 	}
 	
-	@SuppressWarnings({ "unchecked", "rawtypes" })
 	public static Runnable readConfigs(final PacketByteBuf buffer)
 	{
 		final int qty = buffer.readVarInt();
 		
 		final List<Runnable> tasks = new ArrayList<>();
 		
+		readConfigs(buffer, qty, tasks);
+		
+		return () ->
+		{
+			tasks.forEach(Runnable::run);
+			clientSnapshotHash = NO_SNAPSHOT;
+		};
+	}
+	
+	/**
+	 * @return Whether all entries were read
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static boolean readConfigs(final PacketByteBuf buffer, final int qty, final List<Runnable> tasks)
+	{
 		String name;
 		ConfigEntryCodec codec;
 		SyncableConfigEntry entry;
@@ -178,18 +430,18 @@ public class ConfigSyncUtils
 			if (entry == null)
 			{
 				Pehkui.LOGGER.warn("Received unknown config \"{}\" from server.", name);
-				break;
+				return false;
 			}
 			else if (codec == null)
 			{
 				Pehkui.LOGGER.warn("Codec \"{}\" not found. Could not parse config \"{}\" from server.", codec, name);
-				break;
+				return false;
 			}
 			
 			tasks.add(codec.read(buffer, entry));
 		}
 		
-		return () -> tasks.forEach(Runnable::run);
+		return true;
 	}
 	
 	private static class ConfigEntryCodec<T>
@@ -281,7 +533,7 @@ public class ConfigSyncUtils
 		final ArgumentBuilder<ServerCommandSource, ?> builder = CommandManager.literal("sync")
 			.executes(context ->
 			{
-				syncConfigs(context.getSource().getWorld().getServer().getPlayerManager().getPlayerList());
+				resyncConfigs(context.getSource().getWorld().getServer().getPlayerManager().getPlayerList());
 				
 				return 1;
 			});
@@ -312,6 +564,7 @@ public class ConfigSyncUtils
 					{
 						config.invalidate();
 						config.get();
+						markConfigChanged();
 						
 						syncConfigs(context.getSource().getWorld().getServer().getPlayerManager().getPlayerList());
 					}
@@ -329,6 +582,7 @@ public class ConfigSyncUtils
 						{
 							Files.deleteIfExists(FabricLoader.getInstance().getConfigDir().resolve(Pehkui.MOD_ID).resolve("config.json").normalize());
 							config.get();
+							markConfigChanged();
 							syncConfigs(context.getSource().getWorld().getServer().getPlayerManager().getPlayerList());
 							
 							return 1;
@@ -511,6 +765,7 @@ public class ConfigSyncUtils
 		public void setSyncedValue(final T value)
 		{
 			syncedValue = value;
+			markConfigChanged();
 		}
 		
 		public boolean isSynced()
@@ -528,6 +783,7 @@ public class ConfigSyncUtils
 		public void accept(T t)
 		{
 			setSyncedValue(null);
+			clientSnapshotHash = NO_SNAPSHOT;
 			
 			super.accept(t);
 		}
@@ -542,6 +798,7 @@ public class ConfigSyncUtils
 		public void setValue(T t)
 		{
 			setSyncedValue(null);
+			clientSnapshotHash = NO_SNAPSHOT;
 			
 			super.setValue(t);
 		}
@@ -582,6 +839,7 @@ public class ConfigSyncUtils
 		public void accept(final T t)
 		{
 			consumer.accept(t);
+			markConfigChanged();
 		}
 		
 		@Override
@@ -594,6 +852,7 @@ public class ConfigSyncUtils
 		public void setValue(final T t)
 		{
 			consumer.accept(t);
+			markConfigChanged();
 		}
 	}
 }
@@ -0,0 +1,405 @@
+package virtuoel.pehkui.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.jetbrains.annotations.Nullable;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2LongMap;
+import it.unimi.dsi.fastutil.objects.Reference2LongOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceLinkedOpenHashSet;
+import net.minecraft.entity.Entity;
+import net.minecraft.predicate.entity.EntityPredicates;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.World;
+import virtuoel.pehkui.api.PehkuiConfig;
+
+/**
+ * Broadphase for the cramming of entities scaled below {@link PehkuiConfig.Server#crammingGridScaleThreshold}.
+ * <p>The entities around a chunk section are collected once per tick. Those scaled below the threshold are binned into cells
+ * sized by the largest interaction box among them, so each small entity only checks the cells next to it
+ * and the few other entities around, instead of every entity in the nearby sections.
+ * <p>Entities that move, spawn or change size later in the tick are moved between cells as their bounding box is set,
+ * so lookups find the same entities as the vanilla query. Only entities tracked by the world are binned,
+ * and bounding box changes away from every section built this tick are ignored.
+ * <p>Each grid is only used from the thread of its world.
+ */
+public final class CrammingGrid
+{
+	/**
+	 * Entities with larger interaction boxes are not binned, and are checked by every query instead.
+	 */
+	private static final double MAX_CELL_SIZE = 1.0D;
+	private static final double MIN_CELL_SIZE = 1.0D / 64.0D;
+	
+	/**
+	 * Entities are collected around each section with this margin, which fits the interaction box of any binned entity.
+	 */
+	private static final double SECTION_MARGIN = 2.0D * MAX_CELL_SIZE;
+	
+	private static final long ABSENT = -1L;
+	private static final long LARGE = -2L;
+	
+	private final Long2ObjectMap<Section> sections = new Long2ObjectOpenHashMap<>();
+	private long time = Long.MIN_VALUE;
+	
+	/**
+	 * Union of the areas of the sections built this tick, or null if there are none.
+	 */
+	@Nullable
+	private Box coverage = null;
+	
+	/**
+	 * Finds the entities an entity is crammed with, through the grid if the entity is small enough, or through the world otherwise.
+	 */
+	public static List<Entity> getOtherEntities(final World world, final Entity entity, final Box box, final Predicate<? super Entity> predicate)
+	{
+		final double threshold = PehkuiConfig.SERVER.crammingGridScaleThreshold.get();
+		
+		if (threshold <= 0.0D ||
+			world.isClient ||
+			!(world instanceof PehkuiWorldExtensions) ||
+			!isBelowThreshold(entity, threshold) ||
+			getExtent(box) > MAX_CELL_SIZE)
+		{
+			return world.getOtherEntities(entity, box, predicate);
+		}
+		
+		return ((PehkuiWorldExtensions) world).pehkui_getCrammingGrid().query(world, entity, box, predicate, threshold);
+	}
+	
+	/**
+	 * Moves an entity to the cells matching its current bounds in the sections built this tick, called when its bounding box is set.
+	 */
+	public static void update(final Entity entity)
+	{
+		if (!((PehkuiEntityExtensions) entity).pehkui_isTrackedByWorld())
+		{
+			return;
+		}
+		
+		final World world = entity.getEntityWorld();
+		
+		if (world.isClient || !(world instanceof PehkuiWorldExtensions))
+		{
+			return;
+		}
+		
+		final CrammingGrid grid = ((PehkuiWorldExtensions) world).pehkui_getCrammingGrid();
+		final Box coverage = grid.coverage;
+		
+		if (coverage == null)
+		{
+			return;
+		}
+		
+		if (grid.time != world.getTime())
+		{
+			grid.clear();
+			return;
+		}
+		
+		final Box bounds = ((PehkuiEntityExtensions) entity).pehkui_getInteractionBox();
+		
+		// Entities outside of every section keep any stale location, which queries skip since their bounds no longer intersect
+		if (!bounds.intersects(coverage))
+		{
+			return;
+		}
+		
+		final int minX = ChunkSectionPos.getSectionCoord(MathHelper.floor(bounds.minX - SECTION_MARGIN));
+		final int minY = ChunkSectionPos.getSectionCoord(MathHelper.floor(bounds.minY - SECTION_MARGIN));
+		final int minZ = ChunkSectionPos.getSectionCoord(MathHelper.floor(bounds.minZ - SECTION_MARGIN));
+		final int maxX = ChunkSectionPos.getSectionCoord(MathHelper.floor(bounds.maxX + SECTION_MARGIN));
+		final int maxY = ChunkSectionPos.getSectionCoord(MathHelper.floor(bounds.maxY + SECTION_MARGIN));
+		final int maxZ = ChunkSectionPos.getSectionCoord(MathHelper.floor(bounds.maxZ + SECTION_MARGIN));
+		
+		final long count = (long) (maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1);
+		
+		if (count > grid.sections.size())
+		{
+			for (final Section section : grid.sections.values())
+			{
+				section.update(entity, bounds);
+			}
+			
+			return;
+		}
+		
+		Section section;
+		for (int x = minX; x <= maxX; x++)
+		{
+			for (int y = minY; y <= maxY; y++)
+			{
+				for (int z = minZ; z <= maxZ; z++)
+				{
+					section = grid.sections.get(ChunkSectionPos.asLong(x, y, z));
+					
+					if (section != null)
+					{
+						section.update(entity, bounds);
+					}
+				}
+			}
+		}
+	}
+	
+	private List<Entity> query(final World world, final Entity entity, final Box box, final Predicate<? super Entity> predicate, final double threshold)
+	{
+		final long time = world.getTime();
+		
+		if (this.time != time)
+		{
+			this.time = time;
+			clear();
+		}
+		
+		final BlockPos pos = entity.getBlockPos();
+		final int sectionX = ChunkSectionPos.getSectionCoord(pos.getX());
+		final int sectionY = ChunkSectionPos.getSectionCoord(pos.getY());
+		final int sectionZ = ChunkSectionPos.getSectionCoord(pos.getZ());
+		final long key = ChunkSectionPos.asLong(sectionX, sectionY, sectionZ);
+		
+		Section section = this.sections.get(key);
+		
+		if (section == null)
+		{
+			section = new Section(world, sectionX, sectionY, sectionZ, threshold);
+			this.sections.put(key, section);
+			this.coverage = this.coverage == null ? section.area : this.coverage.union(section.area);
+		}
+		
+		final List<Entity> results = new ArrayList<>();
+		
+		section.collect(entity, box, predicate, results);
+		
+		return results;
+	}
+	
+	/**
+	 * Drops the sections of a previous tick, so they do not keep their entities loaded.
+	 */
+	private void clear()
+	{
+		this.sections.clear();
+		this.coverage = null;
+	}
+	
+	private static boolean isBelowThreshold(final Entity entity, final double threshold)
+	{
+		return Math.max(ScaleUtils.getBoundingBoxWidthScale(entity), ScaleUtils.getBoundingBoxHeightScale(entity)) < threshold;
+	}
+	
+	private static double getExtent(final Box box)
+	{
+		return Math.max(box.getXLength(), Math.max(box.getYLength(), box.getZLength()));
+	}
+	
+	private static final class Section
+	{
+		private final Box area;
+		private final double threshold;
+		private final double cellSize;
+		private final Long2ObjectMap<List<Entity>> cells = new Long2ObjectOpenHashMap<>();
+		private final Set<Entity> large = new ReferenceLinkedOpenHashSet<>();
+		
+		/**
+		 * Cell key of each collected entity, or {@link #LARGE} for entities checked by every query.
+		 */
+		private final Reference2LongMap<Entity> locations = new Reference2LongOpenHashMap<>();
+		
+		private Section(final World world, final int sectionX, final int sectionY, final int sectionZ, final double threshold)
+		{
+			final double minX = ChunkSectionPos.getBlockCoord(sectionX) - SECTION_MARGIN;
+			final double minY = ChunkSectionPos.getBlockCoord(sectionY) - SECTION_MARGIN;
+			final double minZ = ChunkSectionPos.getBlockCoord(sectionZ) - SECTION_MARGIN;
+			final double size = 16.0D + 2.0D * SECTION_MARGIN;
+			
+			this.area = new Box(minX, minY, minZ, minX + size, minY + size, minZ + size);
+			this.threshold = threshold;
+			this.locations.defaultReturnValue(ABSENT);
+			
+			final List<Entity> entities = world.getOtherEntities(null, this.area, EntityPredicates.EXCEPT_SPECTATOR);
+			final List<Entity> small = new ArrayList<>(entities.size());
+			
+			double cellSize = MIN_CELL_SIZE;
+			
+			double extent;
+			for (final Entity e : entities)
+			{
+				if (!((PehkuiEntityExtensions) e).pehkui_isTrackedByWorld())
+				{
+					continue;
+				}
+				
+				extent = getExtent(((PehkuiEntityExtensions) e).pehkui_getInteractionBox());
+				
+				if (extent <= MAX_CELL_SIZE && isBelowThreshold(e, threshold))
+				{
+					small.add(e);
+					cellSize = Math.max(cellSize, extent);
+				}
+				else
+				{
+					this.large.add(e);
+					this.locations.put(e, LARGE);
+				}
+			}
+			
+			this.cellSize = cellSize;
+			
+			long cell;
+			for (final Entity e : small)
+			{
+				cell = getCell(((PehkuiEntityExtensions) e).pehkui_getInteractionBox());
+				
+				if (cell == ABSENT)
+				{
+					this.large.add(e);
+					this.locations.put(e, LARGE);
+				}
+				else
+				{
+					addToCell(e, cell);
+				}
+			}
+		}
+		
+		/**
+		 * @return The key of the cell containing the center of the given bounds, or {@link #ABSENT} if it is outside of this section's area
+		 */
+		private long getCell(final Box bounds)
+		{
+			final double x = (bounds.minX + bounds.maxX) * 0.5D;
+			final double y = (bounds.minY + bounds.maxY) * 0.5D;
+			final double z = (bounds.minZ + bounds.maxZ) * 0.5D;
+			
+			if (!this.area.contains(x, y, z))
+			{
+				return ABSENT;
+			}
+			
+			return cellKey(cellCoord(x, this.area.minX), cellCoord(y, this.area.minY), cellCoord(z, this.area.minZ));
+		}
+		
+		private void addToCell(final Entity entity, final long cell)
+		{
+			List<Entity> entities = this.cells.get(cell);
+			
+			if (entities == null)
+			{
+				entities = new ArrayList<>();
+				this.cells.put(cell, entities);
+			}
+			
+			entities.add(entity);
+			this.locations.put(entity, cell);
+		}
+		
+		private void update(final Entity entity, final Box bounds)
+		{
+			final long previous = this.locations.getLong(entity);
+			
+			if (previous == LARGE)
+			{
+				if (!bounds.intersects(this.area))
+				{
+					this.large.remove(entity);
+					this.locations.removeLong(entity);
+				}
+				
+				return;
+			}
+			
+			final long cell = getExtent(bounds) <= this.cellSize && isBelowThreshold(entity, this.threshold) ? getCell(bounds) : ABSENT;
+			
+			if (cell == previous && cell != ABSENT)
+			{
+				return;
+			}
+			
+			if (previous != ABSENT)
+			{
+				this.cells.get(previous).remove(entity);
+				this.locations.removeLong(entity);
+			}
+			
+			if (cell != ABSENT)
+			{
+				addToCell(entity, cell);
+			}
+			else if (bounds.intersects(this.area) && !entity.isSpectator())
+			{
+				this.large.add(entity);
+				this.locations.put(entity, LARGE);
+			}
+		}
+		
+		private int cellCoord(final double coord, final double origin)
+		{
+			return MathHelper.clamp(MathHelper.floor((coord - origin) / this.cellSize), 0, 0x1FFFFF);
+		}
+		
+		private static long cellKey(final int x, final int y, final int z)
+		{
+			return ((long) x << 42) | ((long) y << 21) | z;
+		}
+		
+		/**
+		 * Checks the cells within one cell of the box, which covers binned entities whose interaction box reaches into it.
+		 */
+		private void collect(final Entity entity, final Box box, final Predicate<? super Entity> predicate, final List<Entity> results)
+		{
+			final double margin = this.cellSize;
+			final int minX = cellCoord(box.minX - margin, this.area.minX);
+			final int minY = cellCoord(box.minY - margin, this.area.minY);
+			final int minZ = cellCoord(box.minZ - margin, this.area.minZ);
+			final int maxX = cellCoord(box.maxX + margin, this.area.minX);
+			final int maxY = cellCoord(box.maxY + margin, this.area.minY);
+			final int maxZ = cellCoord(box.maxZ + margin, this.area.minZ);
+			
+			List<Entity> cell;
+			for (int x = minX; x <= maxX; x++)
+			{
+				for (int y = minY; y <= maxY; y++)
+				{
+					for (int z = minZ; z <= maxZ; z++)
+					{
+						cell = this.cells.get(cellKey(x, y, z));
+						
+						if (cell != null)
+						{
+							for (final Entity e : cell)
+							{
+								test(entity, e, box, predicate, results);
+							}
+						}
+					}
+				}
+			}
+			
+			for (final Entity e : this.large)
+			{
+				test(entity, e, box, predicate, results);
+			}
+		}
+		
+		private static void test(final Entity entity, final Entity other, final Box box, final Predicate<? super Entity> predicate, final List<Entity> results)
+		{
+			if (other != entity &&
+				((PehkuiEntityExtensions) other).pehkui_isTrackedByWorld() &&
+				((PehkuiEntityExtensions) other).pehkui_getInteractionBox().intersects(box) &&
+				predicate.test(other))
+			{
+				results.add(other);
+			}
+		}
+	}
+}
@@ -26,6 +26,8 @@ public class MixinTargetClasses
 			"net.minecraft.class_2680", // BlockState
 			"net.minecraft.class_1690", // BoatEntity
 			"net.minecraft.class_2589", // BrewingStandBlockEntity
+			"net.minecraft.class_2826", // ChunkSection
+			"net.minecraft.class_2535", // ClientConnection
 			"net.minecraft.class_1764", // CrossbowItem
 			"net.minecraft.class_1670", // DragonFireballEntity
 			"net.minecraft.class_1681", // EggEntity
@@ -54,6 +56,7 @@ public class MixinTargetClasses
 			"net.minecraft.class_1309", // LivingEntity
 			"net.minecraft.class_1501", // LlamaEntity
 			"net.minecraft.class_1673", // LlamaSpitEntity
+			"net.minecraft.server.MinecraftServer", // MinecraftServer
 			"net.minecraft.class_1308", // MobEntity
 			"net.minecraft.class_2621", // LootableContainerBlockEntity
 			"net.minecraft.class_2487", // NbtCompound
@@ -69,6 +72,7 @@ public class MixinTargetClasses
 			"net.minecraft.class_1675", // ProjectileUtil
 			"net.minecraft.class_1584", // RavagerEntity
 			"net.minecraft.class_3244", // ServerPlayNetworkHandler
+			"net.minecraft.class_3218$class_5526", // ServerWorld$ServerEntityHandler
 			"net.minecraft.class_3222", // ServerPlayerEntity
 			"net.minecraft.class_3225", // ServerPlayerInteractionManager
 			"net.minecraft.class_1614", // SilverfishEntity
@@ -81,6 +85,7 @@ public class MixinTargetClasses
 			"net.minecraft.class_1541", // TntEntity
 			"net.minecraft.class_4111", // VillagerBreedTask
 			"net.minecraft.class_1646", // VillagerEntity
+			"net.minecraft.class_1937", // World
 			"net.minecraft.class_1642", // ZombieEntity
 			"net.minecraft.class_1641", // ZombieVillagerEntity
 		};
@@ -99,6 +104,7 @@ public class MixinTargetClasses
 			"net.minecraft.class_634", // ClientPlayNetworkHandler
 			"net.minecraft.class_746", // ClientPlayerEntity
 			"net.minecraft.class_636", // ClientPlayerInteractionManager
+			"net.minecraft.class_638$class_5612", // ClientWorld$ClientEntityHandler
 			"net.minecraft.class_898", // EntityRenderDispatcher
 			"net.minecraft.class_897", // EntityRenderer
 			"net.minecraft.class_757", // GameRenderer
@@ -0,0 +1,177 @@
+package virtuoel.pehkui.util;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.jetbrains.annotations.Nullable;
+
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.entity.Entity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.World;
+import virtuoel.pehkui.api.ScaleData;
+
+/**
+ * Scaled entities of a world whose interaction bounds reach further from their position than
+ * the margin section based entity queries add to the query box when choosing which sections to visit.
+ * <p>Such entities are merged into the results of entity queries when their own section was not visited.
+ * Only a few entities are ever this large, so they are kept in a set and checked one by one.
+ * <p>Only entities tracked by the world's entity manager are indexed. They are added when tracking starts,
+ * rechecked when their bounding box is set or their scales change, and removed when tracking stops.
+ * <p>Each index is only used from the thread of its world.
+ */
+public final class OversizedEntityIndex
+{
+	private static final double HORIZONTAL_MARGIN = 2.0D;
+	private static final double BOTTOM_MARGIN = 4.0D;
+	private static final double TOP_MARGIN = 0.0D;
+	
+	private final Set<Entity> entities = new ReferenceOpenHashSet<>();
+	
+	/**
+	 * Adds or removes an entity from the index of its world, called when it starts being tracked and when its bounds or scales change.
+	 */
+	public static void update(final Entity entity)
+	{
+		if (!((PehkuiEntityExtensions) entity).pehkui_isTrackedByWorld())
+		{
+			return;
+		}
+		
+		final World world = entity.getEntityWorld();
+		
+		if (!(world instanceof PehkuiWorldExtensions))
+		{
+			return;
+		}
+		
+		final OversizedEntityIndex index = ((PehkuiWorldExtensions) world).pehkui_getOversizedEntityIndex();
+		
+		if (isOversized(entity))
+		{
+			index.entities.add(entity);
+		}
+		else if (!index.entities.isEmpty())
+		{
+			index.entities.remove(entity);
+		}
+	}
+	
+	/**
+	 * Removes an entity from the index of its world, called when it stops being tracked.
+	 */
+	public static void remove(final Entity entity)
+	{
+		final World world = entity.getEntityWorld();
+		
+		if (world instanceof PehkuiWorldExtensions)
+		{
+			final OversizedEntityIndex index = ((PehkuiWorldExtensions) world).pehkui_getOversizedEntityIndex();
+			
+			if (!index.entities.isEmpty())
+			{
+				index.entities.remove(entity);
+			}
+		}
+	}
+	
+	/**
+	 * Checks if a query box touching the entity's interaction bounds could visit sections that exclude the entity's own section.
+	 * Entities without any scale data are never oversized, which keeps this cheap for the entities moving every tick.
+	 */
+	private static boolean isOversized(final Entity entity)
+	{
+		if (!hasScaleData(entity))
+		{
+			return false;
+		}
+		
+		final Box bounds = ((PehkuiEntityExtensions) entity).pehkui_getInteractionBox();
+		final BlockPos pos = entity.getBlockPos();
+		final int sectionX = ChunkSectionPos.getSectionCoord(pos.getX());
+		final int sectionY = ChunkSectionPos.getSectionCoord(pos.getY());
+		final int sectionZ = ChunkSectionPos.getSectionCoord(pos.getZ());
+		
+		return sectionX > ChunkSectionPos.getSectionCoord(MathHelper.floor(bounds.minX + HORIZONTAL_MARGIN)) ||
+			sectionX < ChunkSectionPos.getSectionCoord(MathHelper.floor(bounds.maxX - HORIZONTAL_MARGIN)) ||
+			sectionZ > ChunkSectionPos.getSectionCoord(MathHelper.floor(bounds.minZ + HORIZONTAL_MARGIN)) ||
+			sectionZ < ChunkSectionPos.getSectionCoord(MathHelper.floor(bounds.maxZ - HORIZONTAL_MARGIN)) ||
+			sectionY > ChunkSectionPos.getSectionCoord(MathHelper.floor(bounds.minY + TOP_MARGIN)) ||
+			sectionY < ChunkSectionPos.getSectionCoord(MathHelper.floor(bounds.maxY - BOTTOM_MARGIN));
+	}
+	
+	private static boolean hasScaleData(final Entity entity)
+	{
+		for (final ScaleData scaleData : ((PehkuiEntityExtensions) entity).pehkui_getScaleDataArray())
+		{
+			if (scaleData != null)
+			{
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Adds the indexed entities whose interaction bounds intersect the query box
+	 * and whose sections were not visited by the section based query for that box.
+	 * 
+	 * @param filter Converts a matching entity to the result type, or returns null to skip it
+	 */
+	public <T> void collect(@Nullable final Entity except, final Box box, final Function<Entity, T> filter, final Predicate<? super T> predicate, final List<? super T> results)
+	{
+		if (this.entities.isEmpty())
+		{
+			return;
+		}
+		
+		final int minSectionX = ChunkSectionPos.getSectionCoord(MathHelper.floor(box.minX - HORIZONTAL_MARGIN));
+		final int minSectionY = ChunkSectionPos.getSectionCoord(MathHelper.floor(box.minY - BOTTOM_MARGIN));
+		final int minSectionZ = ChunkSectionPos.getSectionCoord(MathHelper.floor(box.minZ - HORIZONTAL_MARGIN));
+		final int maxSectionX = ChunkSectionPos.getSectionCoord(MathHelper.floor(box.maxX + HORIZONTAL_MARGIN));
+		final int maxSectionY = ChunkSectionPos.getSectionCoord(MathHelper.floor(box.maxY + TOP_MARGIN));
+		final int maxSectionZ = ChunkSectionPos.getSectionCoord(MathHelper.floor(box.maxZ + HORIZONTAL_MARGIN));
+		
+		BlockPos pos;
+		T result;
+		for (final Entity entity : this.entities)
+		{
+			if (entity == except || entity.isRemoved())
+			{
+				continue;
+			}
+			
+			pos = entity.getBlockPos();
+			
+			if (isWithin(ChunkSectionPos.getSectionCoord(pos.getX()), minSectionX, maxSectionX) &&
+				isWithin(ChunkSectionPos.getSectionCoord(pos.getY()), minSectionY, maxSectionY) &&
+				isWithin(ChunkSectionPos.getSectionCoord(pos.getZ()), minSectionZ, maxSectionZ))
+			{
+				continue;
+			}
+			
+			if (!((PehkuiEntityExtensions) entity).pehkui_getInteractionBox().intersects(box))
+			{
+				continue;
+			}
+			
+			result = filter.apply(entity);
+			
+			if (result != null && predicate.test(result))
+			{
+				results.add(result);
+			}
+		}
+	}
+	
+	private static boolean isWithin(final int value, final int min, final int max)
+	{
+		return value >= min && value <= max;
+	}
+}
@@ -0,0 +1,13 @@
+package virtuoel.pehkui.util;
+
+import org.jetbrains.annotations.Nullable;
+
+public interface PehkuiChunkSectionExtensions
+{
+	/**
+	 * @return The summary computed by {@link CoarseBlockCollisions}, or null if the section changed since it was computed
+	 */
+	@Nullable long[] pehkui_getCollisionSummary();
+	
+	void pehkui_setCollisionSummary(@Nullable long[] summary);
+}
@@ -3,6 +3,7 @@ package virtuoel.pehkui.util;
 import java.util.Map;
 
 import net.minecraft.nbt.NbtCompound;
+import net.minecraft.util.math.Box;
 import virtuoel.pehkui.api.ScaleData;
 import virtuoel.pehkui.api.ScaleType;
 
@@ -12,8 +13,60 @@ public interface PehkuiEntityExtensions
 	
 	ScaleData pehkui_getScaleData(ScaleType type);
 	
+	/**
+	 * Returns a read-only live view of the scale data this entity has created, keyed by type.
+	 * Types whose data has not been created yet are absent, and no data is created by reading the view.
+	 * Use {@link #pehkui_getScaleData(ScaleType)} to get the data of a specific type.
+	 */
 	Map<ScaleType, ScaleData> pehkui_getScales();
 	
+	/**
+	 * Returns the backing storage of this entity's scale data, addressed by {@link ScaleType#getIndex()}.
+	 * Entries are null for types that have not been constructed yet. The returned array must not be modified.
+	 */
+	ScaleData[] pehkui_getScaleDataArray();
+	
+	void pehkui_scheduleScaleTick(ScaleData data);
+	
+	void pehkui_tickScales();
+	
+	int pehkui_getScaleCacheVersion();
+	
+	void pehkui_invalidateScaleCaches();
+	
+	/**
+	 * Returns this entity's bounding box expanded by its interaction box scales.
+	 * Cached until the bounding box is replaced or the scale caches are invalidated.
+	 */
+	Box pehkui_getInteractionBox();
+	
+	/**
+	 * Marks this entity as having scale modifiers whose results can change without any scale data changing.
+	 * Scale caches of such entities are invalidated every tick.
+	 */
+	void pehkui_markVolatileScaleModifiers();
+	
+	/**
+	 * @return Whether this entity is tracked by its world's entity manager, and so can be found by entity queries
+	 */
+	boolean pehkui_isTrackedByWorld();
+	
+	void pehkui_setTrackedByWorld(boolean tracked);
+	
+	void pehkui_beginScaleBatch();
+	
+	void pehkui_endScaleBatch();
+	
+	/**
+	 * @return Whether a scale batch is in progress on this entity, in which case the update is queued until it finishes
+	 */
+	boolean pehkui_deferScaleUpdate(ScaleData data);
+	
+	/**
+	 * @return Whether a scale batch is in progress on this entity, in which case dimensions are recalculated once it finishes
+	 */
+	boolean pehkui_deferDimensionUpdate();
+	
 	boolean pehkui_shouldSyncScales();
 	
 	void pehkui_setShouldSyncScales(boolean sync);
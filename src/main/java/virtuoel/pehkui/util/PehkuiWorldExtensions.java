@@ -0,0 +1,8 @@
+package virtuoel.pehkui.util;
+
+public interface PehkuiWorldExtensions
+{
+	OversizedEntityIndex pehkui_getOversizedEntityIndex();
+	
+	CrammingGrid pehkui_getCrammingGrid();
+}
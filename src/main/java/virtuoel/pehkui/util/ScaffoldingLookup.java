@@ -0,0 +1,81 @@
+package virtuoel.pehkui.util;
+
+import java.util.function.Predicate;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.block.ScaffoldingBlock;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.ChunkStatus;
+
+/**
+ * Finds scaffolding in a layer of blocks, such as under the scaled footprint of a climbing entity.
+ * <p>The block palette of each chunk section in the layer is checked first,
+ * so only sections that contain scaffolding are looked at block by block.
+ */
+public final class ScaffoldingLookup
+{
+	private static final Predicate<BlockState> IS_SCAFFOLDING = state -> ((PehkuiBlockStateExtensions) state).pehkui_getBlock() instanceof ScaffoldingBlock;
+	
+	public static boolean containsScaffolding(final World world, final int minX, final int y, final int minZ, final int maxX, final int maxZ)
+	{
+		final int sectionIndex = VersionUtils.MINOR >= 17 ? world.getSectionIndex(y) : y >> 4;
+		
+		if (sectionIndex < 0)
+		{
+			return false;
+		}
+		
+		Chunk chunk;
+		ChunkSection[] sections;
+		ChunkSection section;
+		for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++)
+		{
+			for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++)
+			{
+				chunk = world.getChunk(chunkX, chunkZ, ChunkStatus.FULL, false);
+				
+				if (chunk == null)
+				{
+					continue;
+				}
+				
+				sections = chunk.getSectionArray();
+				
+				if (sectionIndex >= sections.length)
+				{
+					return false;
+				}
+				
+				section = sections[sectionIndex];
+				
+				if (section == null || !section.hasAny(IS_SCAFFOLDING))
+				{
+					continue;
+				}
+				
+				final int x1 = Math.min(maxX, (chunkX << 4) + 15);
+				final int z1 = Math.min(maxZ, (chunkZ << 4) + 15);
+				
+				for (int x = Math.max(minX, chunkX << 4); x <= x1; x++)
+				{
+					for (int z = Math.max(minZ, chunkZ << 4); z <= z1; z++)
+					{
+						if (IS_SCAFFOLDING.test(section.getBlockState(x & 15, y & 15, z & 15)))
+						{
+							return true;
+						}
+					}
+				}
+			}
+		}
+		
+		return false;
+	}
+	
+	private ScaffoldingLookup()
+	{
+		
+	}
+}
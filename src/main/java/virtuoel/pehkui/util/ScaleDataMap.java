@@ -0,0 +1,118 @@
+package virtuoel.pehkui.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import virtuoel.pehkui.api.ScaleData;
+import virtuoel.pehkui.api.ScaleType;
+
+/**
+ * Read-only view of the scale data an entity has created, backed by {@link PehkuiEntityExtensions#pehkui_getScaleDataArray()}.
+ * <p>Types whose data has not been created yet are absent. Iteration follows {@link ScaleType#getIndex()} order
+ * and sees the data present when the iterator was created.
+ */
+public final class ScaleDataMap extends AbstractMap<ScaleType, ScaleData>
+{
+	private final PehkuiEntityExtensions entity;
+	private final Set<Entry<ScaleType, ScaleData>> entrySet = new EntrySet();
+	
+	public ScaleDataMap(final PehkuiEntityExtensions entity)
+	{
+		this.entity = entity;
+	}
+	
+	@Override
+	public ScaleData get(final Object key)
+	{
+		if (!(key instanceof ScaleType))
+		{
+			return null;
+		}
+		
+		final int index = ((ScaleType) key).getIndex();
+		final ScaleData[] scaleData = entity.pehkui_getScaleDataArray();
+		
+		return index < scaleData.length ? scaleData[index] : null;
+	}
+	
+	@Override
+	public boolean containsKey(final Object key)
+	{
+		return get(key) != null;
+	}
+	
+	@Override
+	public int size()
+	{
+		int size = 0;
+		for (final ScaleData data : entity.pehkui_getScaleDataArray())
+		{
+			if (data != null)
+			{
+				size++;
+			}
+		}
+		
+		return size;
+	}
+	
+	@Override
+	public Set<Entry<ScaleType, ScaleData>> entrySet()
+	{
+		return entrySet;
+	}
+	
+	private final class EntrySet extends AbstractSet<Entry<ScaleType, ScaleData>>
+	{
+		@Override
+		public Iterator<Entry<ScaleType, ScaleData>> iterator()
+		{
+			final ScaleData[] scaleData = entity.pehkui_getScaleDataArray();
+			
+			return new Iterator<Entry<ScaleType, ScaleData>>()
+			{
+				private int next = skip(0);
+				
+				private int skip(int index)
+				{
+					while (index < scaleData.length && scaleData[index] == null)
+					{
+						index++;
+					}
+					
+					return index;
+				}
+				
+				@Override
+				public boolean hasNext()
+				{
+					return next < scaleData.length;
+				}
+				
+				@Override
+				public Entry<ScaleType, ScaleData> next()
+				{
+					if (!hasNext())
+					{
+						throw new NoSuchElementException();
+					}
+					
+					final ScaleData data = scaleData[next];
+					next = skip(next + 1);
+					
+					return new SimpleImmutableEntry<>(data.getScaleType(), data);
+				}
+			};
+		}
+		
+		@Override
+		public int size()
+		{
+			return ScaleDataMap.this.size();
+		}
+	}
+}
@@ -0,0 +1,279 @@
+package virtuoel.pehkui.util;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.WeakHashMap;
+
+import org.jetbrains.annotations.Nullable;
+
+import com.google.common.collect.BiMap;
+
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.floats.Float2FloatFunction;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.packet.s2c.play.CustomPayloadS2CPacket;
+import net.minecraft.server.network.ServerPlayNetworkHandler;
+import net.minecraft.util.Identifier;
+import virtuoel.pehkui.Pehkui;
+import virtuoel.pehkui.api.PehkuiNetworkStats;
+import virtuoel.pehkui.api.ScaleModifier;
+import virtuoel.pehkui.api.ScaleRegistries;
+import virtuoel.pehkui.api.ScaleType;
+
+/**
+ * Snapshot of the scale type, modifier and easing registries that is sent to clients when they join,
+ * so scale packets can refer to registry entries by index instead of by identifier.
+ * <p>Entries registered after a table was sent are written as identifiers until the table is resent.
+ */
+public final class ScaleRegistryTable
+{
+	private static volatile ScaleRegistryTable serverTable = null;
+	private static volatile ScaleRegistryTable clientTable = null;
+	private static final Map<ServerPlayNetworkHandler, ScaleRegistryTable> SENT_TABLES = Collections.synchronizedMap(new WeakHashMap<>());
+	
+	private final Identifier[] types;
+	private final Identifier[] modifiers;
+	private final Identifier[] easings;
+	
+	private final Reference2IntMap<ScaleType> typeIndices = new Reference2IntOpenHashMap<>();
+	private final Reference2IntMap<ScaleModifier> modifierIndices = new Reference2IntOpenHashMap<>();
+	private final Reference2IntMap<Float2FloatFunction> easingIndices = new Reference2IntOpenHashMap<>();
+	
+	private ScaleRegistryTable()
+	{
+		this.typeIndices.defaultReturnValue(-1);
+		this.modifierIndices.defaultReturnValue(-1);
+		this.easingIndices.defaultReturnValue(-1);
+		
+		this.types = index(ScaleRegistries.SCALE_TYPES, this.typeIndices);
+		this.modifiers = index(ScaleRegistries.SCALE_MODIFIERS, this.modifierIndices);
+		this.easings = index(ScaleRegistries.SCALE_EASINGS, this.easingIndices);
+	}
+	
+	private ScaleRegistryTable(final Identifier[] types, final Identifier[] modifiers, final Identifier[] easings)
+	{
+		this.types = types;
+		this.modifiers = modifiers;
+		this.easings = easings;
+	}
+	
+	private static <E> Identifier[] index(final Map<Identifier, E> registry, final Reference2IntMap<E> indices)
+	{
+		synchronized (registry)
+		{
+			final Identifier[] ids = new Identifier[registry.size()];
+			
+			int i = 0;
+			for (final Entry<Identifier, E> entry : registry.entrySet())
+			{
+				ids[i] = entry.getKey();
+				indices.put(entry.getValue(), i);
+				i++;
+			}
+			
+			return ids;
+		}
+	}
+	
+	public static ScaleRegistryTable getServerTable()
+	{
+		ScaleRegistryTable table = serverTable;
+		
+		if (table == null)
+		{
+			synchronized (SENT_TABLES)
+			{
+				table = serverTable;
+				
+				if (table == null)
+				{
+					serverTable = table = new ScaleRegistryTable();
+				}
+			}
+		}
+		
+		return table;
+	}
+	
+	/**
+	 * Called when an entry is registered, so the next scale sync resends an up to date table.
+	 */
+	public static void invalidateServerTable()
+	{
+		serverTable = null;
+	}
+	
+	private static final boolean NETWORKING_API_LOADED = ModLoaderUtils.isModLoaded("fabric-networking-api-v1");
+	
+	public static void sendTable(final ServerPlayNetworkHandler networkHandler)
+	{
+		if (NETWORKING_API_LOADED)
+		{
+			if (ServerPlayNetworking.canSend(networkHandler, Pehkui.REGISTRY_SYNC_PACKET))
+			{
+				final ScaleRegistryTable table = getServerTable();
+				final PacketByteBuf buffer = new PacketByteBuf(Unpooled.buffer());
+				
+				table.write(buffer);
+				
+				PehkuiNetworkStats.onPacketSent(Pehkui.REGISTRY_SYNC_PACKET, buffer.readableBytes(), 0);
+				networkHandler.sendPacket(new CustomPayloadS2CPacket(Pehkui.REGISTRY_SYNC_PACKET, buffer));
+				SENT_TABLES.put(networkHandler, table);
+			}
+		}
+	}
+	
+	/**
+	 * Gets the table that scale packets for the given connection should be encoded with.
+	 * If the client was sent an outdated table, the current one is sent first.
+	 * 
+	 * @return The current table, or null if the client never received one and needs identifier based packets
+	 */
+	public static @Nullable ScaleRegistryTable getTable(final ServerPlayNetworkHandler networkHandler)
+	{
+		final ScaleRegistryTable sent = SENT_TABLES.get(networkHandler);
+		
+		if (sent == null)
+		{
+			return null;
+		}
+		
+		final ScaleRegistryTable current = getServerTable();
+		
+		if (sent != current)
+		{
+			ScaleSyncQueue.flush(networkHandler);
+			sendTable(networkHandler);
+		}
+		
+		return current;
+	}
+	
+	public static void removeTable(final ServerPlayNetworkHandler networkHandler)
+	{
+		SENT_TABLES.remove(networkHandler);
+	}
+	
+	public static @Nullable ScaleRegistryTable getClientTable()
+	{
+		return clientTable;
+	}
+	
+	public static void setClientTable(@Nullable final ScaleRegistryTable table)
+	{
+		clientTable = table;
+	}
+	
+	/**
+	 * Version of the indexed scale packet format, checked by clients when receiving a table.
+	 */
+	public static final int PROTOCOL_VERSION = 2;
+	
+	public void write(final PacketByteBuf buffer)
+	{
+		buffer.writeVarInt(PROTOCOL_VERSION);
+		writeIds(buffer, this.types);
+		writeIds(buffer, this.modifiers);
+		writeIds(buffer, this.easings);
+	}
+	
+	/**
+	 * @return The table that was read, or null if the server uses an unsupported version of the indexed scale packet format
+	 */
+	public static @Nullable ScaleRegistryTable read(final PacketByteBuf buffer)
+	{
+		final int version = buffer.readVarInt();
+		
+		if (version != PROTOCOL_VERSION)
+		{
+			Pehkui.LOGGER.warn("Received scale registry table with unsupported version {}, expected {}.", version, PROTOCOL_VERSION);
+			return null;
+		}
+		
+		return new ScaleRegistryTable(readIds(buffer), readIds(buffer), readIds(buffer));
+	}
+	
+	private static void writeIds(final PacketByteBuf buffer, final Identifier[] ids)
+	{
+		buffer.writeVarInt(ids.length);
+		
+		for (final Identifier id : ids)
+		{
+			buffer.writeIdentifier(id);
+		}
+	}
+	
+	private static Identifier[] readIds(final PacketByteBuf buffer)
+	{
+		final Identifier[] ids = new Identifier[buffer.readVarInt()];
+		
+		for (int i = 0; i < ids.length; i++)
+		{
+			ids[i] = buffer.readIdentifier();
+		}
+		
+		return ids;
+	}
+	
+	public void writeType(final PacketByteBuf buffer, final ScaleType type)
+	{
+		writeEntry(buffer, this.typeIndices.getInt(type), ScaleRegistries.SCALE_TYPES, type);
+	}
+	
+	public void writeModifier(final PacketByteBuf buffer, final ScaleModifier modifier)
+	{
+		writeEntry(buffer, this.modifierIndices.getInt(modifier), ScaleRegistries.SCALE_MODIFIERS, modifier);
+	}
+	
+	public void writeEasing(final PacketByteBuf buffer, final Float2FloatFunction easing)
+	{
+		writeEntry(buffer, this.easingIndices.getInt(easing), ScaleRegistries.SCALE_EASINGS, easing);
+	}
+	
+	/**
+	 * Writes the index of an entry plus one, or zero followed by its identifier if it is not part of this table.
+	 */
+	private static <E> void writeEntry(final PacketByteBuf buffer, final int index, final BiMap<Identifier, E> registry, final E entry)
+	{
+		if (index != -1)
+		{
+			buffer.writeVarInt(index + 1);
+		}
+		else
+		{
+			buffer.writeVarInt(0);
+			buffer.writeIdentifier(ScaleRegistries.getId(registry, entry));
+		}
+	}
+	
+	public @Nullable Identifier readType(final PacketByteBuf buffer)
+	{
+		return readEntry(buffer, this.types);
+	}
+	
+	public @Nullable Identifier readModifier(final PacketByteBuf buffer)
+	{
+		return readEntry(buffer, this.modifiers);
+	}
+	
+	public @Nullable Identifier readEasing(final PacketByteBuf buffer)
+	{
+		return readEntry(buffer, this.easings);
+	}
+	
+	private static @Nullable Identifier readEntry(final PacketByteBuf buffer, final Identifier[] ids)
+	{
+		final int index = buffer.readVarInt();
+		
+		if (index == 0)
+		{
+			return buffer.readIdentifier();
+		}
+		
+		return index <= ids.length ? ids[index - 1] : null;
+	}
+}
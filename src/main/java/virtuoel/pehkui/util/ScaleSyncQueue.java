@@ -0,0 +1,516 @@
+package virtuoel.pehkui.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.jetbrains.annotations.Nullable;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceLinkedOpenHashSet;
+import net.minecraft.entity.Entity;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.packet.s2c.play.CustomPayloadS2CPacket;
+import net.minecraft.server.network.ServerPlayNetworkHandler;
+import net.minecraft.server.network.ServerPlayerEntity;
+import virtuoel.pehkui.Pehkui;
+import virtuoel.pehkui.api.PehkuiConfig;
+import virtuoel.pehkui.api.PehkuiNetworkStats;
+import virtuoel.pehkui.api.PehkuiNetworkStats.SyncKind;
+import virtuoel.pehkui.api.ScaleData;
+import virtuoel.pehkui.mixin.ClientConnectionAccessor;
+import virtuoel.pehkui.mixin.ServerPlayNetworkHandlerAccessor;
+
+/**
+ * Collects the indexed scale data synced to a player during a server tick,
+ * and sends it as one bundle packet per player when the tick ends.
+ * <p>Also holds the entities the player started tracking that still need their initial scale sync,
+ * which are sent nearest first within a per tick budget.
+ * <p>Queues, their pending and initial sync bookkeeping are confined to the server thread,
+ * which copies the changed fields of scale data into immutable {@link EntityScales} snapshots as they are queued.
+ * On flush, the list of snapshots and the registry table they are encoded with are handed to the connection's event loop,
+ * which encodes them, splits them into bundles and sends them without touching any other queue state.
+ * A snapshot queued for several players may be encoded by several event loops, so its encoding is synchronized.
+ * The map of queues per connection is only accessed under its own lock, since even lookups in a WeakHashMap expunge collected entries.
+ */
+public final class ScaleSyncQueue
+{
+	private static final Map<ServerPlayNetworkHandler, ScaleSyncQueue> QUEUES = new WeakHashMap<>();
+	private static final List<ScaleSyncQueue> PENDING = new ArrayList<>();
+	private static final Reference2IntMap<Entity> INITIAL_SYNC_COUNTS = new Reference2IntOpenHashMap<>();
+	
+	/**
+	 * The entity count of a bundle is written as a varint padded to its maximum length,
+	 * so space for it can be reserved before the entities are written.
+	 */
+	private static final int COUNT_SIZE = 5;
+	
+	/**
+	 * Bundles are split before reaching the custom payload size limit, leaving room for the entity count.
+	 */
+	private static final int MAX_BUNDLE_SIZE = 0x100000 - COUNT_SIZE;
+	
+	/**
+	 * Scratch buffer for encoding scale data, one per netty event loop thread.
+	 */
+	private static final ThreadLocal<PacketByteBuf> ENCODE_BUFFER = ThreadLocal.withInitial(() -> new PacketByteBuf(Unpooled.buffer()));
+	
+	private final ServerPlayNetworkHandler networkHandler;
+	private List<EntityScales> entries = new ArrayList<>();
+	private ScaleRegistryTable ids = null;
+	private boolean pending = false;
+	private final Set<Entity> initialSyncs = new ReferenceLinkedOpenHashSet<>();
+	
+	private ScaleSyncQueue(final ServerPlayNetworkHandler networkHandler)
+	{
+		this.networkHandler = networkHandler;
+	}
+	
+	public static ScaleSyncQueue get(final ServerPlayNetworkHandler networkHandler)
+	{
+		synchronized (QUEUES)
+		{
+			return QUEUES.computeIfAbsent(networkHandler, ScaleSyncQueue::new);
+		}
+	}
+	
+	private static @Nullable ScaleSyncQueue getIfPresent(final ServerPlayNetworkHandler networkHandler)
+	{
+		synchronized (QUEUES)
+		{
+			return QUEUES.get(networkHandler);
+		}
+	}
+	
+	public static void remove(final ServerPlayNetworkHandler networkHandler)
+	{
+		final ScaleSyncQueue queue;
+		
+		synchronized (QUEUES)
+		{
+			queue = QUEUES.remove(networkHandler);
+		}
+		
+		if (queue != null)
+		{
+			PENDING.remove(queue);
+			
+			for (final Entity entity : queue.initialSyncs)
+			{
+				decrementInitialSyncCount(entity);
+			}
+			
+			queue.initialSyncs.clear();
+		}
+	}
+	
+	/**
+	 * Sends any queued scale data for the given connection right away, such as before the registry table it was encoded with changes.
+	 */
+	public static void flush(final ServerPlayNetworkHandler networkHandler)
+	{
+		final ScaleSyncQueue queue = getIfPresent(networkHandler);
+		
+		if (queue != null)
+		{
+			queue.flush();
+		}
+	}
+	
+	/**
+	 * Called at the end of each server tick.
+	 */
+	public static void flushAll()
+	{
+		if (!PENDING.isEmpty())
+		{
+			// At least one entity is sent per tick, so the queue always drains
+			final int entityBudget = Math.max(1, PehkuiConfig.SERVER.initialSyncEntitiesPerTick.get());
+			final int byteBudget = Math.max(1, PehkuiConfig.SERVER.initialSyncBytesPerTick.get());
+			
+			int retained = 0;
+			for (final ScaleSyncQueue queue : PENDING)
+			{
+				queue.sendInitialSyncs(entityBudget, byteBudget);
+				queue.flush();
+				
+				if (queue.initialSyncs.isEmpty())
+				{
+					queue.pending = false;
+				}
+				else
+				{
+					PENDING.set(retained++, queue);
+				}
+			}
+			
+			PENDING.subList(retained, PENDING.size()).clear();
+		}
+	}
+	
+	/**
+	 * Defers the initial scale sync of an entity the player started tracking until the end of the tick.
+	 */
+	public void queueInitialSync(final Entity entity)
+	{
+		if (this.initialSyncs.add(entity))
+		{
+			INITIAL_SYNC_COUNTS.put(entity, INITIAL_SYNC_COUNTS.getInt(entity) + 1);
+			markPending();
+		}
+	}
+	
+	public static void onStoppedTracking(final Entity entity, final ServerPlayNetworkHandler networkHandler)
+	{
+		if (hasPendingInitialSync(entity))
+		{
+			final ScaleSyncQueue queue = getIfPresent(networkHandler);
+			
+			if (queue != null)
+			{
+				queue.removeInitialSync(entity);
+			}
+		}
+	}
+	
+	/**
+	 * @return Whether any player still needs the initial scale sync of the given entity
+	 */
+	public static boolean hasPendingInitialSync(final Entity entity)
+	{
+		return !INITIAL_SYNC_COUNTS.isEmpty() && INITIAL_SYNC_COUNTS.containsKey(entity);
+	}
+	
+	/**
+	 * Removes a pending initial scale sync, such as when the entity's scales are about to be synced anyway.
+	 * 
+	 * @return Whether the initial sync was pending
+	 */
+	public boolean removeInitialSync(final Entity entity)
+	{
+		if (this.initialSyncs.remove(entity))
+		{
+			decrementInitialSyncCount(entity);
+			return true;
+		}
+		
+		return false;
+	}
+	
+	private static void decrementInitialSyncCount(final Entity entity)
+	{
+		final int count = INITIAL_SYNC_COUNTS.getInt(entity);
+		
+		if (count <= 1)
+		{
+			INITIAL_SYNC_COUNTS.removeInt(entity);
+		}
+		else
+		{
+			INITIAL_SYNC_COUNTS.put(entity, count - 1);
+		}
+	}
+	
+	private void sendInitialSyncs(final int entityBudget, final int byteBudget)
+	{
+		if (this.initialSyncs.isEmpty())
+		{
+			return;
+		}
+		
+		final ServerPlayerEntity player = this.networkHandler.player;
+		final Entity[] entities = this.initialSyncs.toArray(new Entity[0]);
+		final int count = Math.min(entities.length, entityBudget);
+		
+		if (count < entities.length)
+		{
+			selectNearest(entities, player, count);
+		}
+		
+		if (count > 1)
+		{
+			Arrays.sort(entities, 0, count, Comparator.comparingDouble(player::squaredDistanceTo));
+		}
+		
+		int bytes = 0;
+		for (int i = 0; i < count && bytes < byteBudget; i++)
+		{
+			removeInitialSync(entities[i]);
+			bytes += ScaleUtils.syncInitialScales(entities[i], player);
+		}
+	}
+	
+	/**
+	 * Moves the given number of entities nearest to the player to the front of the array, in no particular order,
+	 * without sorting the rest of the array.
+	 */
+	private static void selectNearest(final Entity[] entities, final ServerPlayerEntity player, final int count)
+	{
+		final double[] distances = new double[entities.length];
+		
+		for (int i = 0; i < entities.length; i++)
+		{
+			distances[i] = player.squaredDistanceTo(entities[i]);
+		}
+		
+		final int nth = count - 1;
+		int left = 0;
+		int right = entities.length - 1;
+		
+		while (left < right)
+		{
+			final int pivot = partition(entities, distances, left, right, (left + right) >>> 1);
+			
+			if (pivot == nth)
+			{
+				return;
+			}
+			else if (pivot < nth)
+			{
+				left = pivot + 1;
+			}
+			else
+			{
+				right = pivot - 1;
+			}
+		}
+	}
+	
+	private static int partition(final Entity[] entities, final double[] distances, final int left, final int right, final int pivot)
+	{
+		final double value = distances[pivot];
+		
+		swap(entities, distances, pivot, right);
+		
+		int store = left;
+		for (int i = left; i < right; i++)
+		{
+			if (distances[i] < value)
+			{
+				swap(entities, distances, store++, i);
+			}
+		}
+		
+		swap(entities, distances, right, store);
+		
+		return store;
+	}
+	
+	private static void swap(final Entity[] entities, final double[] distances, final int i, final int j)
+	{
+		final Entity entity = entities[i];
+		entities[i] = entities[j];
+		entities[j] = entity;
+		
+		final double distance = distances[i];
+		distances[i] = distances[j];
+		distances[j] = distance;
+	}
+	
+	/**
+	 * Queues the scale data of an entity, to be encoded with the registry table the player was sent.
+	 */
+	public void add(final EntityScales entityScales, final ScaleRegistryTable ids)
+	{
+		if (this.ids != ids)
+		{
+			flush();
+			this.ids = ids;
+		}
+		
+		markPending();
+		
+		this.entries.add(entityScales);
+	}
+	
+	private void markPending()
+	{
+		if (!this.pending)
+		{
+			this.pending = true;
+			PENDING.add(this);
+		}
+	}
+	
+	private void flush()
+	{
+		if (this.entries.isEmpty())
+		{
+			return;
+		}
+		
+		final List<EntityScales> entries = this.entries;
+		final ScaleRegistryTable ids = this.ids;
+		
+		this.entries = new ArrayList<>();
+		
+		final Channel channel = ((ClientConnectionAccessor) ((ServerPlayNetworkHandlerAccessor) this.networkHandler).pehkui_getConnection()).pehkui_getChannel();
+		
+		if (channel == null)
+		{
+			send(this.networkHandler, entries, ids);
+		}
+		else if (channel.isOpen())
+		{
+			// Queued behind packets already sent this tick, so the bundle keeps its place in the packet order
+			channel.eventLoop().execute(() -> send(this.networkHandler, entries, ids));
+		}
+	}
+	
+	private static void send(final ServerPlayNetworkHandler networkHandler, final List<EntityScales> entries, final ScaleRegistryTable ids)
+	{
+		PacketByteBuf packet = createBundle(entries, 0);
+		int entityCount = 0;
+		
+		EntityScales entityScales;
+		byte[] encoded;
+		for (int i = 0; i < entries.size(); i++)
+		{
+			entityScales = entries.get(i);
+			encoded = entityScales.encode(ids);
+			
+			if (entityCount != 0 && packet.readableBytes() - COUNT_SIZE + encoded.length > MAX_BUNDLE_SIZE)
+			{
+				sendBundle(networkHandler, packet, entityCount);
+				packet = createBundle(entries, i);
+				entityCount = 0;
+			}
+			
+			packet.writeBytes(encoded);
+			entityCount++;
+			
+			PehkuiNetworkStats.onScalesSent(entityScales.kind, entityScales.scales, encoded.length);
+		}
+		
+		sendBundle(networkHandler, packet, entityCount);
+	}
+	
+	/**
+	 * Creates the payload buffer of a bundle, sized for the remaining entries and with space reserved for the entity count.
+	 */
+	private static PacketByteBuf createBundle(final List<EntityScales> entries, final int start)
+	{
+		int size = COUNT_SIZE;
+		for (int i = start; i < entries.size() && size < MAX_BUNDLE_SIZE; i++)
+		{
+			size += entries.get(i).getMaxSize();
+		}
+		
+		final PacketByteBuf packet = new PacketByteBuf(Unpooled.buffer(Math.min(size, MAX_BUNDLE_SIZE + COUNT_SIZE)));
+		
+		packet.writeZero(COUNT_SIZE);
+		
+		return packet;
+	}
+	
+	private static void sendBundle(final ServerPlayNetworkHandler networkHandler, final PacketByteBuf packet, final int entityCount)
+	{
+		packet.setByte(0, (entityCount & 0x7F) | 0x80);
+		packet.setByte(1, ((entityCount >>> 7) & 0x7F) | 0x80);
+		packet.setByte(2, ((entityCount >>> 14) & 0x7F) | 0x80);
+		packet.setByte(3, ((entityCount >>> 21) & 0x7F) | 0x80);
+		packet.setByte(4, (entityCount >>> 28) & 0x0F);
+		
+		PehkuiNetworkStats.onPacketSent(Pehkui.INDEXED_SCALE_PACKET, packet.readableBytes(), entityCount);
+		
+		networkHandler.sendPacket(new CustomPayloadS2CPacket(Pehkui.INDEXED_SCALE_PACKET, packet));
+	}
+	
+	/**
+	 * Snapshot of the scale data of an entity, shared by every player it is queued for.
+	 * Encoded as the entity's id, the number of scale types and their fields,
+	 * at most once per registry table.
+	 */
+	public static final class EntityScales
+	{
+		private final int entityId;
+		private final ScaleData.Snapshot[] scales;
+		private final SyncKind kind;
+		private final int maxSize;
+		
+		private ScaleRegistryTable encodedTable = null;
+		private byte[] encoded = null;
+		
+		private EntityScales(final int entityId, final ScaleData.Snapshot[] scales, final SyncKind kind)
+		{
+			this.entityId = entityId;
+			this.scales = scales;
+			this.kind = kind;
+			
+			int size = 10;
+			for (final ScaleData.Snapshot snapshot : scales)
+			{
+				size += 5 + snapshot.getMaxSize();
+			}
+			
+			this.maxSize = size;
+		}
+		
+		/**
+		 * @param delta Whether to only include fields that changed since the last sync
+		 * @return The snapshot, or null if none of the scale data had fields to send
+		 */
+		public static @Nullable EntityScales create(final Entity entity, final Collection<ScaleData> scales, final boolean delta)
+		{
+			final List<ScaleData.Snapshot> snapshots = new ArrayList<>(scales.size());
+			
+			ScaleData.Snapshot snapshot;
+			for (final ScaleData scaleData : scales)
+			{
+				snapshot = scaleData.createSnapshot(delta);
+				
+				if (snapshot != null)
+				{
+					snapshots.add(snapshot);
+				}
+			}
+			
+			if (snapshots.isEmpty())
+			{
+				return null;
+			}
+			
+			return new EntityScales(entity.getId(), snapshots.toArray(new ScaleData.Snapshot[0]), delta ? SyncKind.DIRTY : SyncKind.INITIAL);
+		}
+		
+		/**
+		 * @return Upper bound of the encoded size, used for budgeting before the snapshot is encoded
+		 */
+		public int getMaxSize()
+		{
+			return this.maxSize;
+		}
+		
+		private synchronized byte[] encode(final ScaleRegistryTable ids)
+		{
+			if (this.encodedTable != ids)
+			{
+				final PacketByteBuf buffer = ENCODE_BUFFER.get();
+				
+				buffer.clear();
+				buffer.writeVarInt(this.entityId);
+				buffer.writeVarInt(this.scales.length);
+				
+				for (final ScaleData.Snapshot snapshot : this.scales)
+				{
+					ids.writeType(buffer, snapshot.getScaleType());
+					snapshot.write(buffer, ids);
+				}
+				
+				this.encoded = new byte[buffer.readableBytes()];
+				buffer.readBytes(this.encoded);
+				this.encodedTable = ids;
+			}
+			
+			return this.encoded;
+		}
+	}
+}
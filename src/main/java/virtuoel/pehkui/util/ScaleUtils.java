@@ -9,7 +9,10 @@ import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
+import org.jetbrains.annotations.ApiStatus;
+
 import io.netty.buffer.Unpooled;
+import net.fabricmc.fabric.api.networking.v1.PlayerLookup;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.nbt.NbtCompound;
@@ -18,6 +21,8 @@ import net.minecraft.nbt.NbtOps;
 import net.minecraft.network.PacketByteBuf;
 import net.minecraft.network.packet.Packet;
 import net.minecraft.network.packet.s2c.play.CustomPayloadS2CPacket;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Direction;
@@ -25,11 +30,14 @@ import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.math.Vec3d;
 import virtuoel.pehkui.Pehkui;
 import virtuoel.pehkui.api.PehkuiConfig;
+import virtuoel.pehkui.api.PehkuiNetworkStats;
+import virtuoel.pehkui.api.PehkuiNetworkStats.SyncKind;
 import virtuoel.pehkui.api.ScaleData;
 import virtuoel.pehkui.api.ScaleModifier;
 import virtuoel.pehkui.api.ScaleRegistries;
 import virtuoel.pehkui.api.ScaleType;
 import virtuoel.pehkui.api.ScaleTypes;
+import virtuoel.pehkui.util.ScaleSyncQueue.EntityScales;
 
 public class ScaleUtils
 {
@@ -62,6 +70,8 @@ public class ScaleUtils
 	
 	public static void loadScaleOnRespawn(Entity target, Entity source, boolean alive)
 	{
+		((PehkuiEntityExtensions) target).pehkui_invalidateScaleCaches();
+		
 		if (alive || PehkuiConfig.COMMON.keepAllScalesOnRespawn.get())
 		{
 			loadScale(target, source);
@@ -212,56 +222,354 @@ public class ScaleUtils
 	{
 		if (((PehkuiEntityExtensions) entity).pehkui_shouldSyncScales())
 		{
-			syncScales(entity, packetSender, ScaleData::shouldSync, true);
+			if (NETWORKING_API_LOADED && entity.getEntityWorld() instanceof ServerWorld)
+			{
+				syncScales(entity, getScaleSyncReceivers(entity), ScaleData::shouldSync, true);
+			}
+			else
+			{
+				syncScales(entity, packetSender, ScaleData::shouldSync, true);
+			}
+			
 			((PehkuiEntityExtensions) entity).pehkui_setShouldSyncScales(false);
 		}
 	}
 	
+	private static final boolean NETWORKING_API_LOADED = ModLoaderUtils.isModLoaded("fabric-networking-api-v1");
+	
+	/**
+	 * Gets the players that scale packets for the given entity are sent to, being the players tracking it and the entity itself if it is a player.
+	 */
+	private static Collection<ServerPlayerEntity> getScaleSyncReceivers(Entity entity)
+	{
+		final Collection<ServerPlayerEntity> tracking = PlayerLookup.tracking(entity);
+		
+		if (entity instanceof ServerPlayerEntity)
+		{
+			final List<ServerPlayerEntity> receivers = new ArrayList<>(tracking.size() + 1);
+			
+			receivers.addAll(tracking);
+			receivers.add((ServerPlayerEntity) entity);
+			
+			return receivers;
+		}
+		
+		return tracking;
+	}
+	
 	public static void syncScalesOnTrackingStart(Entity entity, Consumer<Packet<?>> packetSender)
 	{
-		syncScales(entity, packetSender, ScaleUtils::hasScaleDataChanged, false);
+		syncScales(entity, packetSender, ScaleUtils::isSyncedOnTrackingStart, false);
+	}
+	
+	/**
+	 * Queues the initial scale sync of an entity the player started tracking, if it has any scale data that trackers need.
+	 * Queued syncs are sent within a per tick budget by {@link ScaleSyncQueue}.
+	 */
+	public static void syncScalesOnTrackingStart(Entity entity, ServerPlayerEntity player)
+	{
+		for (final ScaleData scaleData : ((PehkuiEntityExtensions) entity).pehkui_getScaleDataArray())
+		{
+			if (scaleData != null && isSyncedOnTrackingStart(scaleData))
+			{
+				ScaleSyncQueue.get(player.networkHandler).queueInitialSync(entity);
+				return;
+			}
+		}
+		
+		markStartedTracking(entity);
 	}
 	
-	private static boolean hasScaleDataChanged(final ScaleData scaleData)
+	/**
+	 * Sends the scale data of an entity that trackers need to a player that started tracking it.
+	 * 
+	 * @return Number of bytes of scale data written, or an upper bound of it if encoding was deferred
+	 */
+	@ApiStatus.Internal
+	public static int syncInitialScales(Entity entity, ServerPlayerEntity player)
 	{
-		return !scaleData.hasDefaultValues();
+		final Collection<ScaleData> syncedScales = INITIAL_SCALE_DATA.get();
+		
+		for (final ScaleData scaleData : ((PehkuiEntityExtensions) entity).pehkui_getScaleDataArray())
+		{
+			if (scaleData != null && isSyncedOnTrackingStart(scaleData))
+			{
+				syncedScales.add(scaleData);
+			}
+		}
+		
+		int bytes = 0;
+		
+		if (!syncedScales.isEmpty())
+		{
+			bytes = sendScales(entity, player, syncedScales, false);
+			syncedScales.clear();
+		}
+		
+		markStartedTracking(entity);
+		
+		return bytes;
+	}
+	
+	private static void markStartedTracking(Entity entity)
+	{
+		for (final ScaleData scaleData : ((PehkuiEntityExtensions) entity).pehkui_getScaleDataArray())
+		{
+			if (scaleData != null)
+			{
+				scaleData.onStartedTracking();
+			}
+		}
+	}
+	
+	private static boolean isSyncedOnTrackingStart(final ScaleData scaleData)
+	{
+		switch (scaleData.getScaleType().getSyncPolicy())
+		{
+			case ALL_TRACKERS:
+				return !scaleData.hasDefaultValues();
+			case DERIVED_ONLY:
+				return scaleData.hasDifferingModifiers();
+			default:
+				return false;
+		}
 	}
 	
 	private static final ThreadLocal<Collection<ScaleData>> SYNCED_SCALE_DATA = ThreadLocal.withInitial(ArrayList::new);
+	private static final ThreadLocal<Collection<ScaleData>> OWNER_SCALE_DATA = ThreadLocal.withInitial(ArrayList::new);
+	private static final ThreadLocal<Collection<ScaleData>> INITIAL_SCALE_DATA = ThreadLocal.withInitial(ArrayList::new);
 	
-	public static void syncScales(Entity entity, Consumer<Packet<?>> packetSender, Predicate<ScaleData> condition, boolean unmark)
+	/**
+	 * Sorts the scale data matching the condition by {@link ScaleType.SyncPolicy},
+	 * into data synced to trackers and data only synced to the entity itself if it is a player.
+	 */
+	private static void collectSyncedScales(Entity entity, Predicate<ScaleData> condition, boolean unmark, Collection<ScaleData> syncedScales, Collection<ScaleData> ownerScales)
 	{
-		final Collection<ScaleData> syncedScales = SYNCED_SCALE_DATA.get();
+		final boolean hasOwner = entity instanceof ServerPlayerEntity;
 		
-		for (final ScaleData scaleData : ((PehkuiEntityExtensions) entity).pehkui_getScales().values())
+		ScaleType.SyncPolicy policy;
+		for (final ScaleData scaleData : ((PehkuiEntityExtensions) entity).pehkui_getScaleDataArray())
 		{
 			if (scaleData != null && condition.test(scaleData))
 			{
-				syncedScales.add(scaleData);
-				
 				if (unmark)
 				{
 					scaleData.markForSync(false);
 				}
+				
+				policy = scaleData.getScaleType().getSyncPolicy();
+				
+				if (policy.syncsToTrackers())
+				{
+					syncedScales.add(scaleData);
+				}
+				else if (hasOwner && policy.syncsToOwner())
+				{
+					ownerScales.add(scaleData);
+				}
 			}
 		}
+	}
+	
+	public static void syncScales(Entity entity, Consumer<Packet<?>> packetSender, Predicate<ScaleData> condition, boolean unmark)
+	{
+		final Collection<ScaleData> syncedScales = SYNCED_SCALE_DATA.get();
+		final Collection<ScaleData> ownerScales = OWNER_SCALE_DATA.get();
+		
+		collectSyncedScales(entity, condition, unmark, syncedScales, ownerScales);
 		
 		if (!syncedScales.isEmpty())
 		{
-			final PacketByteBuf buffer = new PacketByteBuf(Unpooled.buffer());
+			final PacketByteBuf buffer = writeScales(entity, syncedScales);
+			final int bytes = buffer.readableBytes();
+			
+			packetSender.accept(new CustomPayloadS2CPacket(Pehkui.SCALE_PACKET, buffer));
+			PehkuiNetworkStats.onPacketSent(Pehkui.SCALE_PACKET, bytes, 1);
+			PehkuiNetworkStats.onScalesSent(unmark ? SyncKind.DIRTY : SyncKind.INITIAL, syncedScales, bytes, 1);
+		}
+		
+		if (!ownerScales.isEmpty())
+		{
+			sendScales(entity, (ServerPlayerEntity) entity, ownerScales, unmark);
+		}
+		
+		finishSync(unmark, syncedScales, ownerScales);
+	}
+	
+	/**
+	 * Syncs scale data to each player using the packet encoding its client negotiated when joining.
+	 * When unmarking, clients that received the registry table are only sent fields that changed since the last sync.
+	 * Scale data is only sent to the players its type's {@link ScaleType.SyncPolicy} allows.
+	 */
+	public static void syncScales(Entity entity, Collection<ServerPlayerEntity> players, Predicate<ScaleData> condition, boolean unmark)
+	{
+		final Collection<ScaleData> syncedScales = SYNCED_SCALE_DATA.get();
+		final Collection<ScaleData> ownerScales = OWNER_SCALE_DATA.get();
+		
+		collectSyncedScales(entity, condition, unmark, syncedScales, ownerScales);
+		
+		if (syncedScales.isEmpty() && ownerScales.isEmpty())
+		{
+			return;
+		}
+		
+		Packet<?> packet = null;
+		int packetSize = 0;
+		EntityScales entityScales = null;
+		boolean snapshotted = false;
+		
+		int bytes = 0;
+		int receivers = 0;
+		
+		final boolean initialSyncPending = ScaleSyncQueue.hasPendingInitialSync(entity);
+		List<ServerPlayerEntity> initialSyncs = null;
+		ServerPlayerEntity owner = null;
+		
+		ScaleRegistryTable ids;
+		for (final ServerPlayerEntity player : players)
+		{
+			if (player == entity && !ownerScales.isEmpty())
+			{
+				owner = player;
+				continue;
+			}
 			
-			buffer.writeVarInt(entity.getId());
-			buffer.writeInt(syncedScales.size());
+			if (syncedScales.isEmpty())
+			{
+				continue;
+			}
+			
+			if (initialSyncPending && ScaleSyncQueue.get(player.networkHandler).removeInitialSync(entity))
+			{
+				if (initialSyncs == null)
+				{
+					initialSyncs = new ArrayList<>();
+				}
+				
+				initialSyncs.add(player);
+				continue;
+			}
+			
+			ids = ScaleRegistryTable.getTable(player.networkHandler);
+			
+			if (ids == null)
+			{
+				if (packet == null)
+				{
+					final PacketByteBuf buffer = writeScales(entity, syncedScales);
+					
+					packetSize = buffer.readableBytes();
+					packet = new CustomPayloadS2CPacket(Pehkui.SCALE_PACKET, buffer);
+				}
+				
+				player.networkHandler.sendPacket(packet);
+				PehkuiNetworkStats.onPacketSent(Pehkui.SCALE_PACKET, packetSize, 1);
+				
+				bytes += packetSize;
+				receivers++;
+			}
+			else
+			{
+				if (!snapshotted)
+				{
+					entityScales = EntityScales.create(entity, syncedScales, unmark);
+					snapshotted = true;
+				}
+				
+				if (entityScales != null)
+				{
+					ScaleSyncQueue.get(player.networkHandler).add(entityScales, ids);
+				}
+			}
+		}
+		
+		PehkuiNetworkStats.onScalesSent(unmark ? SyncKind.DIRTY : SyncKind.INITIAL, syncedScales, bytes, receivers);
+		
+		if (initialSyncs != null)
+		{
+			for (final ServerPlayerEntity player : initialSyncs)
+			{
+				syncInitialScales(entity, player);
+			}
+		}
+		
+		if (owner != null)
+		{
+			syncedScales.addAll(ownerScales);
+			ownerScales.clear();
 			
+			sendScales(entity, owner, syncedScales, unmark);
+		}
+		
+		finishSync(unmark, syncedScales, ownerScales);
+	}
+	
+	private static void finishSync(boolean unmark, Collection<ScaleData> syncedScales, Collection<ScaleData> ownerScales)
+	{
+		if (unmark)
+		{
 			for (final ScaleData s : syncedScales)
 			{
-				buffer.writeIdentifier(ScaleRegistries.getId(ScaleRegistries.SCALE_TYPES, s.getScaleType()));
-				s.toPacket(buffer);
+				s.markFieldsSynced();
 			}
 			
-			packetSender.accept(new CustomPayloadS2CPacket(Pehkui.SCALE_PACKET, buffer));
-			syncedScales.clear();
+			for (final ScaleData s : ownerScales)
+			{
+				s.markFieldsSynced();
+			}
 		}
+		
+		syncedScales.clear();
+		ownerScales.clear();
+	}
+	
+	/**
+	 * Sends scale data to a single player.
+	 * 
+	 * @return Number of bytes of scale data written, or an upper bound of it if encoding was deferred
+	 */
+	private static int sendScales(Entity entity, ServerPlayerEntity player, Collection<ScaleData> scales, boolean delta)
+	{
+		final ScaleRegistryTable ids = ScaleRegistryTable.getTable(player.networkHandler);
+		
+		if (ids == null)
+		{
+			final PacketByteBuf buffer = writeScales(entity, scales);
+			final int bytes = buffer.readableBytes();
+			
+			player.networkHandler.sendPacket(new CustomPayloadS2CPacket(Pehkui.SCALE_PACKET, buffer));
+			PehkuiNetworkStats.onPacketSent(Pehkui.SCALE_PACKET, bytes, 1);
+			PehkuiNetworkStats.onScalesSent(delta ? SyncKind.DIRTY : SyncKind.INITIAL, scales, bytes, 1);
+			
+			return bytes;
+		}
+		
+		final EntityScales entityScales = EntityScales.create(entity, scales, delta);
+		
+		if (entityScales == null)
+		{
+			return 0;
+		}
+		
+		ScaleSyncQueue.get(player.networkHandler).add(entityScales, ids);
+		
+		return entityScales.getMaxSize();
+	}
+	
+	private static PacketByteBuf writeScales(Entity entity, Collection<ScaleData> scales)
+	{
+		final PacketByteBuf buffer = new PacketByteBuf(Unpooled.buffer());
+		
+		buffer.writeVarInt(entity.getId());
+		buffer.writeInt(scales.size());
+		
+		for (final ScaleData s : scales)
+		{
+			buffer.writeIdentifier(ScaleRegistries.getId(ScaleRegistries.SCALE_TYPES, s.getScaleType()));
+			s.toPacket(buffer);
+		}
+		
+		return buffer;
 	}
 	
 	public static Vec3d getEyePos(final Entity entity)
@@ -622,8 +930,32 @@ public class ScaleUtils
 		return config.get() ? getTypedScale(entity, type, tickDelta) : type.getDefaultBaseScale();
 	}
 	
+	/**
+	 * Entities without scale data of the given type get the type's default scale,
+	 * which is computed without constructing scale data when the type's default modifiers allow it.
+	 */
 	public static float getTypedScale(Entity entity, ScaleType type, float tickDelta)
 	{
-		return entity == null ? type.getDefaultBaseScale() : type.getScaleData(entity).getScale(tickDelta);
+		if (entity == null)
+		{
+			return type.getDefaultBaseScale();
+		}
+		
+		final ScaleData[] scales = ((PehkuiEntityExtensions) entity).pehkui_getScaleDataArray();
+		final int index = type.getIndex();
+		
+		if (index < scales.length && scales[index] != null)
+		{
+			return scales[index].getScale(tickDelta);
+		}
+		
+		final CompiledScaleModifiers defaults = type.getCompiledDefaultModifiers();
+		
+		if (!defaults.isStandalone())
+		{
+			return type.getScaleData(entity).getScale(tickDelta);
+		}
+		
+		return defaults.modifyDefaultScale(entity, type, type.getDefaultBaseScale(), tickDelta);
 	}
 }